@@ -12,6 +12,8 @@ package com.tylersuehr.esr;
 public abstract class AbstractStateDisplay implements EmptyStateRecyclerView.StateDisplay {
     /* Stores padding dimensions (left, top, right, bottom) */
     private final int[] padding = { 0, 0, 0, 0 };
+    /* Incremented whenever something that changes how the display is drawn is set */
+    private int configVersion;
 
 
     public void setPadding(int left, int top, int right, int bottom) {
@@ -19,6 +21,25 @@ public abstract class AbstractStateDisplay implements EmptyStateRecyclerView.Sta
         this.padding[1] = top;
         this.padding[2] = right;
         this.padding[3] = bottom;
+        notifyConfigChanged();
+    }
+
+    /**
+     * Gets the version of the display's config, which changes whenever something that
+     * changes how the display is drawn is set; so drawings of it can be cached.
+     *
+     * @return Config version
+     */
+    public final int getConfigVersion() {
+        return configVersion;
+    }
+
+    /**
+     * Call whenever something that changes how the display is drawn is set, or
+     * prepared in the background.
+     */
+    protected final void notifyConfigChanged() {
+        this.configVersion++;
     }
 
     protected final int getPaddingLeft() {
@@ -0,0 +1,116 @@
+package com.tylersuehr.esr;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+import java.util.ArrayList;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Process-wide frame clock, built on {@link Choreographer}, that drives all animated
+ * state displays.
+ *
+ * Instead of every animated display owning an animator, each {@link EmptyStateRecyclerView}
+ * showing an animating display subscribes to this clock. A single frame callback is posted
+ * per vsync no matter how many recyclers are animating, and displays read the shared frame
+ * time (or a phase derived from it) when they are drawn.
+ *
+ * This must only be used from the main thread.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+public final class AnimationFrameClock implements Choreographer.FrameCallback {
+    private static AnimationFrameClock instance;
+
+    /* Stores all the recyclers currently subscribed to frames */
+    private final ArrayList<EmptyStateRecyclerView> subscribers = new ArrayList<>();
+    /* Stores the time of the current frame, in milliseconds (set when frames start ticking) */
+    private long frameTimeMillis;
+    /* True if a frame callback has been posted */
+    private boolean framePosted = false;
+
+
+    private AnimationFrameClock() {}
+
+    public static AnimationFrameClock getInstance() {
+        if (instance == null) {
+            instance = new AnimationFrameClock();
+        }
+        return instance;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        this.frameTimeMillis = frameTimeNanos / 1000000L;
+
+        // Iterate backwards so subscribers can safely unsubscribe during dispatch
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            if (i < subscribers.size()) {
+                this.subscribers.get(i).onAnimationFrame();
+            }
+        }
+
+        if (subscribers.isEmpty()) {
+            this.framePosted = false;
+        } else {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Gets the time of the current animation frame.
+     * @return Frame time in milliseconds ({@link SystemClock#uptimeMillis()} base)
+     */
+    public long getFrameTimeMillis() {
+        return frameTimeMillis;
+    }
+
+    /**
+     * Gets the animation phase for the current frame, going from 0 to 1 and back
+     * to 0 again (like a reversing, infinitely repeating animator).
+     *
+     * @param durationMillis Duration of one direction of the animation
+     * @return Phase between 0 and 1
+     */
+    public float getPhase(long durationMillis) {
+        if (durationMillis <= 0) { return 0; }
+        final long time = frameTimeMillis % (durationMillis << 1);
+        final float fraction = (float)time / durationMillis;
+        return (fraction <= 1f) ? fraction : 2f - fraction;
+    }
+
+    /**
+     * Gets the animation progress for the current frame, going from 0 to 1 and then
+     * starting over again (like a restarting, infinitely repeating animator).
+     *
+     * @param durationMillis Duration of one pass of the animation
+     * @return Progress between 0 and 1
+     */
+    public float getProgress(long durationMillis) {
+        if (durationMillis <= 0) { return 0; }
+        return (float)(frameTimeMillis % durationMillis) / durationMillis;
+    }
+
+    void subscribe(@NonNull EmptyStateRecyclerView rv) {
+        if (subscribers.contains(rv)) { return; }
+        this.subscribers.add(rv);
+
+        // Start ticking frames if we aren't already
+        if (!framePosted) {
+            this.frameTimeMillis = SystemClock.uptimeMillis();
+            this.framePosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void unsubscribe(@NonNull EmptyStateRecyclerView rv) {
+        this.subscribers.remove(rv);
+
+        // Stop ticking frames once nobody needs them
+        if (subscribers.isEmpty() && framePosted) {
+            this.framePosted = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+}
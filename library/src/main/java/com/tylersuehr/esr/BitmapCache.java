@@ -0,0 +1,218 @@
+package com.tylersuehr.esr;
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Process-wide, byte-bounded LRU cache of the decoded and scaled bitmaps drawn by image
+ * state displays, shared by all recyclers.
+ *
+ * Showing the same artwork, at the same size, in many recyclers only keeps one copy
+ * of it in memory. Bitmaps are reference counted: every display drawing a bitmap holds
+ * a reference to it, and bitmaps that are referenced are never evicted (even if that
+ * means going over the max size for a while). Evicted bitmaps that the cache owns are
+ * handed to {@link BitmapPool} to be reused.
+ *
+ * This is safe to use from any thread.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+public final class BitmapCache {
+    private static BitmapCache instance;
+
+    /* Stores all entries, from least to most recently used */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /* Stores the max size of all unreferenced bitmaps, in bytes */
+    private int maxSize;
+    /* Stores the size of all bitmaps, in bytes */
+    private int size;
+
+
+    private BitmapCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static synchronized BitmapCache getInstance() {
+        if (instance == null) {
+            // Default to an 8th of the memory the app can use
+            instance = new BitmapCache((int)Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8));
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the max size of the cache.
+     * @param maxSize Max size, in bytes
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size cannot be negative!");
+        }
+        this.maxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Gets the size of all bitmaps in the cache.
+     * @return Size, in bytes
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Evicts all bitmaps that aren't being drawn; useful when the app is asked
+     * to trim its memory.
+     */
+    public synchronized void evictAll() {
+        trimToSize(0);
+    }
+
+    /**
+     * Gets the bitmap for the given key, adding a reference to it. Every acquired
+     * bitmap must later be released with {@link #release(Key)}.
+     *
+     * @param key {@link Key}
+     * @return {@link Bitmap}, or null if not cached
+     */
+    synchronized Bitmap acquire(@NonNull Key key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.refCount++;
+        return entry.bitmap;
+    }
+
+    /**
+     * Adds the bitmap for the given key, with a reference to it. If another bitmap was
+     * cached for the key in the meantime, a reference to that one is returned instead.
+     *
+     * @param key {@link Key}
+     * @param bitmap {@link Bitmap}
+     * @param poolable True if nothing but the cache references the bitmap, so it
+     *                 can be pooled once evicted
+     * @return Cached {@link Bitmap}, which must later be released with {@link #release(Key)}
+     */
+    synchronized Bitmap put(@NonNull Key key, @NonNull Bitmap bitmap, boolean poolable) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(bitmap, poolable);
+            entries.put(key, entry);
+            this.size += entry.size;
+            trimToSize(maxSize);
+        } else if (poolable && entry.bitmap != bitmap) {
+            BitmapPool.getInstance().put(bitmap);
+        }
+        entry.refCount++;
+        return entry.bitmap;
+    }
+
+    /**
+     * Removes a reference to the bitmap for the given key, allowing it to be evicted
+     * once it has no more references.
+     *
+     * @param key {@link Key}
+     */
+    synchronized void release(@NonNull Key key) {
+        final Entry entry = entries.get(key);
+        if (entry != null && entry.refCount > 0) {
+            entry.refCount--;
+            if (entry.refCount == 0) {
+                trimToSize(maxSize);
+            }
+        }
+    }
+
+    private void trimToSize(int maxSize) {
+        final Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            final Entry entry = it.next().getValue();
+            if (entry.refCount == 0) {
+                it.remove();
+                this.size -= entry.size;
+                if (entry.poolable) {
+                    BitmapPool.getInstance().put(entry.bitmap);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Identifies a bitmap by its source (a drawable resource or another bitmap), and
+     * everything that was done to it, by whom.
+     */
+    static final class Key {
+        private final Class<?> producer;
+        private final Object source;
+        private final int width;
+        private final int height;
+        private final byte scaleType;
+        private final Bitmap.Config config;
+
+
+        /**
+         * @param producer Class of the display that made the bitmap, since displays (and
+         *                 subclasses changing how the image is scaled) each scale differently
+         * @param source Resolved drawable resource (see {@link ImageUtils#getResourceKey})
+         *               or source {@link Bitmap}
+         * @param width Target width, or 0 if it doesn't matter
+         * @param height Target height, or 0 if it doesn't matter
+         * @param scaleType Scale type applied to the source
+         * @param config {@link Bitmap.Config} of the bitmap
+         */
+        Key(@NonNull Class<?> producer, @NonNull Object source, int width, int height,
+            byte scaleType, Bitmap.Config config) {
+            this.producer = producer;
+            this.source = source;
+            this.width = width;
+            this.height = height;
+            this.scaleType = scaleType;
+            this.config = config;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (!(o instanceof Key)) { return false; }
+            final Key key = (Key)o;
+            return width == key.width
+                    && height == key.height
+                    && scaleType == key.scaleType
+                    && config == key.config
+                    && producer == key.producer
+                    && source.equals(key.source);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = producer.hashCode();
+            result = 31 * result + source.hashCode();
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + scaleType;
+            result = 31 * result + (config != null ? config.hashCode() : 0);
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        final Bitmap bitmap;
+        final int size;
+        final boolean poolable;
+        int refCount;
+
+
+        Entry(Bitmap bitmap, boolean poolable) {
+            this.bitmap = bitmap;
+            this.size = bitmap.getByteCount();
+            this.poolable = poolable;
+        }
+    }
+}
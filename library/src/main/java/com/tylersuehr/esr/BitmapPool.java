@@ -0,0 +1,179 @@
+package com.tylersuehr.esr;
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Process-wide, byte-bounded pool of mutable bitmaps that aren't used anymore, so the
+ * bitmaps that image state displays crop, stretch, and decode into can reuse old buffers
+ * instead of allocating new ones (e.g. on every size change while resizing a window).
+ *
+ * Bitmaps of the exact same size and config are always reused. On KitKat and above,
+ * the bitmap with the smallest big enough allocation is reconfigured to the needed size
+ * instead, unless even that is much bigger than needed; so small images never tie up
+ * the screen-sized buffers that the next screen-sized bitmap would need.
+ *
+ * This is safe to use from any thread.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+final class BitmapPool {
+    /* Max multiple of the needed size a reused allocation may be */
+    static final int MAX_SIZE_MULTIPLE = 2;
+    private static BitmapPool instance;
+
+    /* Stores the pooled bitmaps, from oldest to newest */
+    private final ArrayList<Bitmap> bitmaps = new ArrayList<>();
+    /* Stores the max size of all pooled bitmaps, in bytes */
+    private final int maxSize;
+    /* Stores the size of all pooled bitmaps, in bytes */
+    private int size;
+
+
+    private BitmapPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    static synchronized BitmapPool getInstance() {
+        if (instance == null) {
+            // Default to a 16th of the memory the app can use
+            instance = new BitmapPool((int)Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16));
+        }
+        return instance;
+    }
+
+    /**
+     * Gets a cleared, mutable bitmap of the given size and config, reusing a pooled
+     * bitmap if possible.
+     *
+     * @param width Width of the bitmap
+     * @param height Height of the bitmap
+     * @param config {@link Bitmap.Config} of the bitmap
+     * @return {@link Bitmap}
+     */
+    @NonNull
+    Bitmap get(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = take(width, height, config);
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, config);
+        }
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * Takes a pooled bitmap with an allocation of at least the given size, to decode
+     * into with {@link android.graphics.BitmapFactory.Options#inBitmap}. This is only
+     * possible on KitKat and above.
+     *
+     * @param byteCount Needed allocation size, in bytes
+     * @return {@link Bitmap}, or null if none
+     */
+    synchronized Bitmap takeForDecode(int byteCount) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            return null;
+        }
+        final int index = indexOfBestFit(byteCount);
+        return (index >= 0) ? remove(index) : null;
+    }
+
+    /**
+     * Adds a bitmap that isn't used anymore to the pool. It must not be drawn again
+     * by whoever put it in.
+     *
+     * @param bitmap {@link Bitmap}
+     */
+    synchronized void put(@NonNull Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled()) {
+            return;
+        }
+        final int byteCount = getAllocationByteCount(bitmap);
+        if (byteCount > maxSize) {
+            return;
+        }
+
+        this.bitmaps.add(bitmap);
+        this.size += byteCount;
+
+        // Drop the oldest bitmaps to stay within the max size
+        while (size > maxSize) {
+            remove(0);
+        }
+    }
+
+    private synchronized Bitmap take(int width, int height, Bitmap.Config config) {
+        // Prefer the same size and config, since it works on all versions
+        for (int i = 0; i < bitmaps.size(); i++) {
+            final Bitmap bitmap = bitmaps.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                return remove(i);
+            }
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            final int index = indexOfBestFit(width * height * getBytesPerPixel(config));
+            if (index >= 0) {
+                return reconfigure(remove(index), width, height, config);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the pooled bitmap with the smallest allocation that fits the given size.
+     * @return Index of the bitmap, or -1 if none fits
+     */
+    private int indexOfBestFit(int byteCount) {
+        int best = -1;
+        int bestByteCount = Integer.MAX_VALUE;
+        for (int i = 0; i < bitmaps.size(); i++) {
+            final int allocation = getAllocationByteCount(bitmaps.get(i));
+            if (fits(allocation, byteCount) && allocation < bestByteCount) {
+                best = i;
+                bestByteCount = allocation;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks if an allocation can be reused for the given size, without wasting
+     * more than {@link #MAX_SIZE_MULTIPLE} times the size.
+     */
+    static boolean fits(int allocation, int byteCount) {
+        return allocation >= byteCount && allocation / MAX_SIZE_MULTIPLE <= byteCount;
+    }
+
+    private Bitmap remove(int index) {
+        final Bitmap bitmap = bitmaps.remove(index);
+        this.size -= getAllocationByteCount(bitmap);
+        return bitmap;
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static Bitmap reconfigure(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+        bitmap.reconfigure(width, height, config);
+        return bitmap;
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static int getAllocationByteCount(Bitmap bitmap) {
+        return (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT)
+                ? bitmap.getAllocationByteCount()
+                : bitmap.getByteCount();
+    }
+
+    /**
+     * Gets the bytes per pixel of the configs we make bitmaps in (any other config is
+     * sized as {@link Bitmap.Config#ARGB_8888}, which never underestimates it).
+     */
+    static int getBytesPerPixel(Bitmap.Config config) {
+        return (config == Bitmap.Config.RGB_565) ? 2 : 4;
+    }
+}
@@ -0,0 +1,165 @@
+package com.tylersuehr.esr;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.support.annotation.NonNull;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Implementation of {@link EmptyStateRecyclerView.StateDisplay} that caches the drawing of
+ * another, static (non-animated), state display in a bitmap; so redrawing the recycler (like
+ * for item animations, overscroll glows and decorations) only draws that bitmap, instead of
+ * all the texts and images of the display.
+ *
+ * The display is drawn into the bitmap again whenever the size of the recycler changes, or
+ * the display's config changes (as reported by {@link AbstractStateDisplay#getConfigVersion()}).
+ * Displays that don't extend {@link AbstractStateDisplay}, or change in other ways, must
+ * call {@link #invalidate()} when they change.
+ *
+ * The cache costs a bitmap the size of the recycler, so only use this for displays that
+ * are redrawn often.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+public class CachedStateDisplay implements EmptyStateRecyclerView.ReleasableStateDisplay {
+    private final EmptyStateRecyclerView.StateDisplay display;
+    private final DrawingCache<Bitmap> cache = new DrawingCache<>(new DrawingCache.Recycler<Bitmap>() {
+        @Override
+        public void recycle(Bitmap drawing) {
+            BitmapPool.getInstance().put(drawing);
+        }
+    });
+    /* Incremented whenever the cache is invalidated explicitly */
+    private int invalidations;
+
+    /* True if the drawing should be rasterized on a background thread */
+    private boolean renderAsync = false;
+    private boolean rendering = false;
+    /* True if the display was released while its drawing was rasterized */
+    private boolean releasePending = false;
+
+
+    public CachedStateDisplay(@NonNull EmptyStateRecyclerView.StateDisplay display) {
+        if (display == null) {
+            throw new NullPointerException("State display cannot be null!");
+        }
+        if (display instanceof EmptyStateRecyclerView.AnimatedStateDisplay) {
+            throw new IllegalArgumentException("Animated state displays cannot be cached!");
+        }
+        this.display = display;
+    }
+
+    @Override
+    public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {
+        final int width = rv.getMeasuredWidth();
+        final int height = rv.getMeasuredHeight();
+        if (width <= 0 || height <= 0) { return; }
+
+        final int version = getVersion();
+        if (cache.get(width, height, version) == null) {
+            if (!renderAsync) {
+                this.cache.put(render(rv, width, height), width, height, version);
+            } else if (!rendering) {
+                renderInBackground(rv, width, height, version);
+            }
+        }
+
+        // Until rasterized for a new size in the background, nothing is drawn
+        final Bitmap bitmap = cache.getForSize(width, height);
+        if (bitmap != null) {
+            canvas.drawBitmap(bitmap, 0, 0, null);
+        }
+    }
+
+    @Override
+    public void onReleaseState(EmptyStateRecyclerView rv) {
+        this.cache.clear();
+        if (rendering) {
+            // The recording may still use the display's bitmaps, so release it afterwards
+            this.releasePending = true;
+        } else if (display instanceof EmptyStateRecyclerView.ReleasableStateDisplay) {
+            ((EmptyStateRecyclerView.ReleasableStateDisplay)display).onReleaseState(rv);
+        }
+    }
+
+    /**
+     * Gets the state display being cached.
+     * @return {@link EmptyStateRecyclerView.StateDisplay}
+     */
+    public EmptyStateRecyclerView.StateDisplay getDisplay() {
+        return display;
+    }
+
+    /**
+     * Sets whether the drawing is rasterized on a background thread, instead of in the
+     * draw pass. The display is still drawn on the main thread, but only recorded there;
+     * until rasterized, the previous drawing (or nothing) is drawn.
+     *
+     * @param renderAsync True to rasterize in the background
+     */
+    public void setRenderAsync(boolean renderAsync) {
+        this.renderAsync = renderAsync;
+    }
+
+    /**
+     * Invalidates the cache, so the display is drawn again the next time the
+     * recycler is drawn.
+     */
+    public void invalidate() {
+        this.invalidations++;
+    }
+
+    int getVersion() {
+        // Both only ever increase, so any change to either changes the sum
+        return invalidations + ((display instanceof AbstractStateDisplay)
+                ? ((AbstractStateDisplay)display).getConfigVersion() : 0);
+    }
+
+    private Bitmap render(final EmptyStateRecyclerView rv, final int width, final int height) {
+        final Bitmap bitmap = BitmapPool.getInstance().get(width, height, Bitmap.Config.ARGB_8888);
+        this.display.onDrawState(rv, new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private void renderInBackground(final EmptyStateRecyclerView rv, final int width,
+                                    final int height, final int version) {
+        // Displays aren't thread-safe, so they're only ever drawn on the main thread; the
+        // background thread just plays back what they recorded
+        final Picture picture = new Picture();
+        this.display.onDrawState(rv, picture.beginRecording(width, height));
+        picture.endRecording();
+
+        this.rendering = true;
+        StatePreparer.prepare(rv, new StatePreparer.Task() {
+            private Bitmap rendered;
+
+            @Override
+            void onPrepare() {
+                this.rendered = BitmapPool.getInstance().get(width, height, Bitmap.Config.ARGB_8888);
+                new Canvas(rendered).drawPicture(picture);
+            }
+
+            @Override
+            void onPublish() {
+                rendering = false;
+                if (isFailed()) {
+                    // Rasterize on the main thread from now on
+                    renderAsync = false;
+                }
+                if (!isFailed() && !releasePending && version == getVersion()) {
+                    cache.put(rendered, width, height, version);
+                } else if (rendered != null) {
+                    // Failed, released, or the display changed meanwhile (then it's recorded
+                    // again when the recycler is drawn)
+                    BitmapPool.getInstance().put(rendered);
+                }
+                if (releasePending) {
+                    releasePending = false;
+                    onReleaseState(rv);
+                }
+            }
+        });
+    }
+}
@@ -1,13 +1,16 @@
 package com.tylersuehr.esr;
-import android.animation.ArgbEvaluator;
 import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
 import android.util.DisplayMetrics;
+import java.lang.ref.WeakReference;
 
 /**
  * Copyright © 2017 Tyler Suehr
@@ -78,57 +81,96 @@ public abstract class ContentItemLoadingStateFactory {
      * This is available to be subclassed by any other classes outside of this parent class,
      * but is also the subclass for all other internal classes.
      */
-    public static abstract class AbstractContentItemLoadingState implements EmptyStateRecyclerView.StateDisplay {
+    public static abstract class AbstractContentItemLoadingState implements EmptyStateRecyclerView.AnimatedStateDisplay,
+                EmptyStateRecyclerView.LayerAnimatedStateDisplay {
+        /* Constants for the shimmer animation mode */
+        public static final byte SHIMMER_PULSE = 0; // Content color pulses
+        public static final byte SHIMMER_SWEEP = 1; // Gradient highlight sweeps across content
+        public static final byte SHIMMER_LAYER = 2; // Content fades as a hardware layer, without redrawing
+
         private static final int DEFAULT_ANIM_DURATION = 900;
+        private static final float LAYER_ANIM_MIN_ALPHA = 0.4f;
 
         /* Properties for content loading drawing */
         private final Paint contentPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         private boolean animateContentItems = true;
         private int numberOfContentItems = 3;
-        private ValueAnimator anim;
+        private int animDuration = DEFAULT_ANIM_DURATION;
+        private ShimmerPalette animPalette = ShimmerPalette.DEFAULT;
+        private byte shimmerMode = SHIMMER_PULSE;
+        private ShimmerGradient shimmerGradient;
+        /* Stores the recycler that last drew us, to tell it when we change */
+        private WeakReference<EmptyStateRecyclerView> host;
+
+        /* Cached content item geometry, rebuilt only when the content size changes */
+        private final Path contentPath = new Path();
+        private int pathItems = -1;
+        private int pathWidth = -1;
+        private int pathHeight = -1;
 
 
         public AbstractContentItemLoadingState(Context c) {
             onSetupContentPaint(c, contentPaint);
+
+            // Draw a plain, still skeleton on low-RAM devices
+            DisplayProfile.init(c);
+            if (DisplayProfile.isLowRamProfile()) {
+                this.contentPaint.setAntiAlias(false);
+                this.animateContentItems = false;
+            }
         }
 
         @Override
-        public final void onDrawState(final EmptyStateRecyclerView rv, Canvas canvas) {
+        public final void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {
             final int width = rv.getMeasuredWidth();
             final int height = rv.getMeasuredHeight();
+            if (host == null || host.get() != rv) {
+                this.host = new WeakReference<>(rv);
+            }
 
-            // Draw all of our content items
-            renderContent(numberOfContentItems, width, height, canvas, contentPaint);
-
-            // Setup and start animation, if possible
+            // Animate the content color using the shared animation clock
             if (animateContentItems) {
-                if (anim == null) {
-                    this.anim = ObjectAnimator.ofObject(contentPaint, "color", new ArgbEvaluator(),
-                            Color.parseColor("#E0E0E0"), Color.parseColor("#BDBDBD"), Color.parseColor("#9E9E9E"));
-                    onInterceptAnimatorCreation(anim);
-                    this.anim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                        @Override
-                        public void onAnimationUpdate(ValueAnimator animation) {
-                            rv.invalidate();
-                        }
-                    });
-                    this.anim.start();
+                if (shimmerMode == SHIMMER_SWEEP) {
+                    this.shimmerGradient.apply(contentPaint, width,
+                            AnimationFrameClock.getInstance().getProgress(animDuration << 1));
+                } else if (shimmerMode == SHIMMER_PULSE) {
+                    this.contentPaint.setColor(animPalette.colorAt(
+                            AnimationFrameClock.getInstance().getPhase(animDuration)));
                 }
             }
+
+            // Draw all of our content items
+            renderContent(numberOfContentItems, width, height, canvas, contentPaint);
         }
 
-        /**
-         * Intercepts the animator's creation. Override this if you want to set
-         * custom properties on the animator.
-         *
-         * @param anim {@link ValueAnimator}
-         */
-        protected void onInterceptAnimatorCreation(@NonNull ValueAnimator anim) {
-            anim.setDuration(DEFAULT_ANIM_DURATION);
+        @Override
+        public boolean isAnimating() {
+            return animateContentItems && shimmerMode != SHIMMER_LAYER;
+        }
+
+        @Override
+        public boolean isLayerAnimating() {
+            return animateContentItems && shimmerMode == SHIMMER_LAYER;
+        }
+
+        @Override
+        public void onSetupLayerAnimator(@NonNull ObjectAnimator anim) {
+            anim.setFloatValues(1f, LAYER_ANIM_MIN_ALPHA);
+            anim.setDuration(animDuration);
             anim.setRepeatMode(ValueAnimator.REVERSE);
             anim.setRepeatCount(ValueAnimator.INFINITE);
         }
 
+        @Override
+        public void getAnimatedBounds(EmptyStateRecyclerView rv, Rect outBounds) {
+            final int width = rv.getMeasuredWidth();
+            final int height = rv.getMeasuredHeight();
+
+            // Content items are drawn from the top, so only invalidate down to the last one
+            final int contentHeight = getContentHeight(numberOfContentItems, height);
+            outBounds.set(0, 0, width, Math.min(height, contentHeight + 1));
+        }
+
         /**
          * Sets up the content paint used to draw content items.
          *
@@ -141,17 +183,46 @@ public abstract class ContentItemLoadingStateFactory {
         /**
          * Render the content at a given index in the content item sequence.
          *
+         * By default, this draws the cached geometry built by {@link #onBuildContentPath(int, int, int, Path)},
+         * which is only rebuilt when the number of content items or the available size
+         * changes; each frame then only replays the path with the current paint.
+         *
          * @param numberOfContentItems Number of content items to draw
          * @param availableWidth Width canvas real-estate
          * @param availableHeight Height canvas real-estate
          * @param canvas {@link Canvas} to draw on
          * @param contentPaint {@link Paint} to draw with
          */
-        protected abstract void renderContent(int numberOfContentItems,
-                                              int availableWidth,
-                                              int availableHeight,
-                                              Canvas canvas,
-                                              Paint contentPaint);
+        protected void renderContent(int numberOfContentItems,
+                                     int availableWidth,
+                                     int availableHeight,
+                                     Canvas canvas,
+                                     Paint contentPaint) {
+            if (numberOfContentItems != pathItems
+                    || availableWidth != pathWidth
+                    || availableHeight != pathHeight) {
+                this.contentPath.rewind();
+                onBuildContentPath(numberOfContentItems, availableWidth, availableHeight, contentPath);
+                this.pathItems = numberOfContentItems;
+                this.pathWidth = availableWidth;
+                this.pathHeight = availableHeight;
+            }
+            canvas.drawPath(contentPath, contentPaint);
+        }
+
+        /**
+         * Builds the geometry of all the content items into the given path. This is
+         * only called when the number of content items or the available size changes.
+         *
+         * @param numberOfContentItems Number of content items to build
+         * @param availableWidth Width canvas real-estate
+         * @param availableHeight Height canvas real-estate
+         * @param path Empty {@link Path} to add content item shapes to
+         */
+        protected void onBuildContentPath(int numberOfContentItems,
+                                          int availableWidth,
+                                          int availableHeight,
+                                          Path path) {}
 
         /**
          * Get the height of a single content item.
@@ -160,6 +231,17 @@ public abstract class ContentItemLoadingStateFactory {
          */
         protected abstract int sizeOfContentItem();
 
+        /**
+         * Get the total height of all the drawn content items.
+         *
+         * @param numberOfContentItems Number of content items to draw
+         * @param availableHeight Height canvas real-estate
+         * @return Height in pixels
+         */
+        protected int getContentHeight(int numberOfContentItems, int availableHeight) {
+            return numberOfContentItems * sizeOfContentItem();
+        }
+
         /**
          * Sets if the content items will animate or not.
          *
@@ -167,6 +249,56 @@ public abstract class ContentItemLoadingStateFactory {
          */
         public void setAnimateContentItems(boolean animateContentItems) {
             this.animateContentItems = animateContentItems;
+            setupShimmer();
+            invalidateHost();
+        }
+
+        /**
+         * Sets the duration of one pass of the content item animation.
+         *
+         * @param animDuration Duration in milliseconds
+         */
+        public void setAnimationDuration(int animDuration) {
+            this.animDuration = animDuration;
+            invalidateHost();
+        }
+
+        /**
+         * Used to intercept the creation of the animator that pulsed the content color.
+         * Content items aren't animated by an animator of their own anymore, so this is
+         * never called.
+         *
+         * @param anim {@link ValueAnimator}
+         * @deprecated Use {@link #setAnimationDuration(int)}, {@link #setAnimationColors(int...)},
+         * and {@link #setShimmerMode(byte)} instead.
+         */
+        @Deprecated
+        protected void onInterceptAnimatorCreation(@NonNull ValueAnimator anim) {}
+
+        /**
+         * Sets the colors the content items animate between.
+         *
+         * @param colors Colors to animate between
+         */
+        public void setAnimationColors(@ColorInt int... colors) {
+            this.animPalette = new ShimmerPalette(colors);
+            setupShimmer();
+            invalidateHost();
+        }
+
+        /**
+         * Sets how the content items animate; either {@link #SHIMMER_PULSE}, where the
+         * content color pulses (the default), {@link #SHIMMER_SWEEP}, where a gradient
+         * highlight sweeps across the content, or {@link #SHIMMER_LAYER}, where the recycler
+         * fades a hardware layer the content is drawn into, so it's only redrawn when it
+         * changes (API 18 and up; the content doesn't animate before that).
+         *
+         * @param shimmerMode {@link #SHIMMER_PULSE}, {@link #SHIMMER_SWEEP}, or {@link #SHIMMER_LAYER}
+         */
+        public void setShimmerMode(byte shimmerMode) {
+            this.shimmerMode = shimmerMode;
+            setupShimmer();
+            invalidateHost();
         }
 
         /**
@@ -176,6 +308,34 @@ public abstract class ContentItemLoadingStateFactory {
          */
         public void setNumberOfContentItems(int numberOfContentItems) {
             this.numberOfContentItems = numberOfContentItems;
+            invalidateHost();
+        }
+
+        /**
+         * Lets the recycler showing us know we changed how we're drawn or animated.
+         */
+        private void invalidateHost() {
+            final EmptyStateRecyclerView rv = (host != null) ? host.get() : null;
+            if (rv != null) {
+                rv.invalidateStateDisplay();
+            }
+        }
+
+        private void setupShimmer() {
+            if (shimmerMode == SHIMMER_SWEEP && animateContentItems) {
+                // Sweep the first palette color as a highlight over the last one; the paint
+                // is opaque black, so the shader's colors are drawn as they are
+                this.shimmerGradient = new ShimmerGradient(animPalette.colorAt(1f), animPalette.colorAt(0f));
+                this.shimmerGradient.install(contentPaint);
+                this.contentPaint.setColor(Color.BLACK);
+            } else {
+                this.shimmerGradient = null;
+                this.contentPaint.setShader(null);
+                if (shimmerMode != SHIMMER_PULSE) {
+                    // Content is drawn in the darkest color; faded by the recycler, or still
+                    this.contentPaint.setColor(animPalette.colorAt(1f));
+                }
+            }
         }
     }
 
@@ -212,7 +372,7 @@ public abstract class ContentItemLoadingStateFactory {
         }
 
         @Override
-        protected void renderContent(int numberOfContentItems, int availableWidth, int availableHeight, Canvas canvas, Paint contentPaint) {
+        protected void onBuildContentPath(int numberOfContentItems, int availableWidth, int availableHeight, Path path) {
             final int radius = (circleSize >> 1);
             final int verticalDistance = sizeOfContentItem();
 
@@ -224,29 +384,29 @@ public abstract class ContentItemLoadingStateFactory {
                 dy = i * verticalDistance + radius + large;
 
                 // Draw the image placeholder
-                canvas.drawCircle(dx, dy, radius, contentPaint);
+                path.addCircle(dx, dy, radius, Path.Direction.CW);
 
                 int diff = (circleSize - (lineHeight * 2 + small)) >> 1;
 
                 // Draw the first long line
                 dx += radius + large;
                 dy -= radius - diff;
-                canvas.drawRect(
+                path.addRect(
                         dx,
                         dy,
                         dx + (availableWidth - dx - (large << 1)),
                         dy + lineHeight,
-                        contentPaint
+                        Path.Direction.CW
                 );
 
                 // Draw the second semi-long line
                 dy += lineHeight + small;
-                canvas.drawRect(
+                path.addRect(
                         dx,
                         dy,
                         dx + (availableWidth - dx - (large << 3)),
                         dy + lineHeight,
-                        contentPaint
+                        Path.Direction.CW
                 );
             }
         }
@@ -288,7 +448,7 @@ public abstract class ContentItemLoadingStateFactory {
         }
 
         @Override
-        protected void renderContent(int numberOfContentItems, int availableWidth, int availableHeight, Canvas canvas, Paint contentPaint) {
+        protected void onBuildContentPath(int numberOfContentItems, int availableWidth, int availableHeight, Path path) {
             final int radius = (circleSize >> 1);
             final int verticalDistance = sizeOfContentItem();
 
@@ -300,19 +460,19 @@ public abstract class ContentItemLoadingStateFactory {
                 dy = i * verticalDistance + radius + large;
 
                 // Draw the image placeholder
-                canvas.drawCircle(dx, dy, radius, contentPaint);
+                path.addCircle(dx, dy, radius, Path.Direction.CW);
 
                 int diff = (circleSize - lineHeight) >> 1;
 
                 // Draw the first long line
                 dx += radius + large;
                 dy -= radius - diff;
-                canvas.drawRect(
+                path.addRect(
                         dx,
                         dy,
                         dx + (availableWidth - dx - (large << 1)),
                         dy + lineHeight,
-                        contentPaint
+                        Path.Direction.CW
                 );
             }
         }
@@ -356,7 +516,7 @@ public abstract class ContentItemLoadingStateFactory {
         }
 
         @Override
-        protected void renderContent(int numberOfContentItems, int availableWidth, int availableHeight, Canvas canvas, Paint contentPaint) {
+        protected void onBuildContentPath(int numberOfContentItems, int availableWidth, int availableHeight, Path path) {
             final int radius = (circleSize >> 1);
             final int verticalDistance = sizeOfContentItem();
 
@@ -367,30 +527,30 @@ public abstract class ContentItemLoadingStateFactory {
                 // Draw the circle in the top-left side
                 dx = radius + large;
                 dy = i * verticalDistance + radius + large;
-                canvas.drawCircle(dx, dy, radius, contentPaint);
+                path.addCircle(dx, dy, radius, Path.Direction.CW);
 
                 // Draw a short line to the right vertical-center of circle
                 int offset = (circleSize - lineHeight) >> 1;
                 dx += radius + large;
                 dy -= radius - offset;
-                canvas.drawRect(
+                path.addRect(
                         dx,
                         dy,
                         dx + radius + (availableWidth >> 2),
                         dy + lineHeight,
-                        contentPaint);
+                        Path.Direction.CW);
 
                 // Draw a 4 long lines under the circle, following under each other
                 final int longLineDistance = (lineHeight + large);
                 for (int j = 0; j < 4; j++) {
                     dx = large;
                     dy = j * longLineDistance + ((i * verticalDistance) + circleSize + (large << 1));
-                    canvas.drawRect(
+                    path.addRect(
                             dx,
                             dy,
                             dx + (availableWidth - (large << (j == 3 ? 3 : 1))),
                             dy + lineHeight,
-                            contentPaint);
+                            Path.Direction.CW);
                 }
             }
         }
@@ -428,7 +588,7 @@ public abstract class ContentItemLoadingStateFactory {
         }
 
         @Override
-        protected void renderContent(int numberOfContentItems, int availableWidth, int availableHeight, Canvas canvas, Paint contentPaint) {
+        protected void onBuildContentPath(int numberOfContentItems, int availableWidth, int availableHeight, Path path) {
             float dy = 0;
 
             // Since we're only incrementing the y-coordinate, we can allocate for
@@ -442,28 +602,35 @@ public abstract class ContentItemLoadingStateFactory {
             for (int i = 0; i < itemsToDraw; i++) {
                 dy += large;
                 // Draw a long line
-                canvas.drawRect(
+                path.addRect(
                         large,
                         dy,
                         lineWidth,
                         dy + lineHeight,
-                        contentPaint);
+                        Path.Direction.CW);
                 dy += lineHeight;
             }
 
             // Draw a short line
             dy += large;
-            canvas.drawRect(
+            path.addRect(
                     large,
                     dy,
                     lineWidth - (lineWidth / 4),
                     dy + lineHeight,
-                    contentPaint);
+                    Path.Direction.CW);
         }
 
         @Override
         protected int sizeOfContentItem() {
             return lineHeight;
         }
+
+        @Override
+        protected int getContentHeight(int numberOfContentItems, int availableHeight) {
+            // Half of the possible long lines, followed by the short line
+            final int itemsToDraw = (availableHeight / (lineHeight + large)) / 2;
+            return (itemsToDraw + 1) * (lineHeight + large);
+        }
     }
 }
\ No newline at end of file
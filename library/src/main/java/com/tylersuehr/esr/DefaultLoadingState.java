@@ -1,11 +1,9 @@
 package com.tylersuehr.esr;
-import android.animation.ArgbEvaluator;
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.support.annotation.NonNull;
 
 /**
@@ -19,13 +17,15 @@ import android.support.annotation.NonNull;
  * @author Tyler Suehr
  * @version 1.0
  */
-public class DefaultLoadingState implements EmptyStateRecyclerView.StateDisplay {
+public class DefaultLoadingState implements EmptyStateRecyclerView.AnimatedStateDisplay {
+    private static final int ANIM_DURATION = 900;
+
     /* Used to paint the title text */
     private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
     /* Stores the title text for the loading state */
     private final String title;
-    /* Used to animate the title text */
-    private ValueAnimator anim;
+    /* Stores the bounds of the title text, relative to where it's drawn */
+    private final Rect titleBounds = new Rect();
 
 
     public DefaultLoadingState(@NonNull Context c, @NonNull String title) {
@@ -35,29 +35,36 @@ public class DefaultLoadingState implements EmptyStateRecyclerView.StateDisplay
         this.textPaint.setColor(Color.parseColor("#212121"));
         this.textPaint.setTextSize(21f * c.getResources().getDisplayMetrics().scaledDensity);
         this.textPaint.setTextAlign(Paint.Align.CENTER);
+        this.textPaint.getTextBounds(title, 0, title.length(), titleBounds);
     }
 
     @Override
-    public void onDrawState(final EmptyStateRecyclerView rv, Canvas canvas) {
+    public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {
+        // Animate the title color using the shared animation clock
+        this.textPaint.setColor(ShimmerPalette.DEFAULT.colorAt(
+                AnimationFrameClock.getInstance().getPhase(ANIM_DURATION)));
+
         canvas.drawText(title,
                 (rv.getMeasuredWidth() >> 1),
                 (rv.getMeasuredHeight() >> 1),
                 textPaint);
+    }
+
+    @Override
+    public boolean isAnimating() {
+        return true;
+    }
+
+    @Override
+    public void getAnimatedBounds(EmptyStateRecyclerView rv, Rect outBounds) {
+        final int dx = (rv.getMeasuredWidth() >> 1);
+        final int dy = (rv.getMeasuredHeight() >> 1);
+        final int halfWidth = (titleBounds.width() >> 1) + 1;
 
-        // Setup animator, if necessary
-        if (anim == null) {
-            this.anim = ObjectAnimator.ofObject(textPaint, "color", new ArgbEvaluator(),
-                    Color.parseColor("#E0E0E0"), Color.parseColor("#BDBDBD"), Color.parseColor("#9E9E9E"));
-            this.anim.setDuration(900);
-            this.anim.setRepeatMode(ValueAnimator.REVERSE);
-            this.anim.setRepeatCount(ValueAnimator.INFINITE);
-            this.anim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    rv.invalidate();
-                }
-            });
-            this.anim.start();
-        }
+        // Text is centered horizontally, so only the vertical bounds are relative
+        outBounds.set(dx - halfWidth,
+                dy + titleBounds.top - 1,
+                dx + halfWidth,
+                dy + titleBounds.bottom + 1);
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.tylersuehr.esr;
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.app.ActivityManagerCompat;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Process-wide profile for how state displays trade quality for memory.
+ *
+ * On low-RAM devices (as reported by {@link ActivityManager#isLowRamDevice()}) the
+ * low-RAM profile is used automatically: state images use {@link Bitmap.Config#RGB_565},
+ * halving their memory, and the loading skeletons draw without anti-aliasing and
+ * don't animate. Both can also be set explicitly.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+public final class DisplayProfile {
+    /* True once the device was checked for low RAM */
+    private static volatile boolean initialized = false;
+    /* True if the low-RAM profile is used */
+    private static volatile boolean lowRam = false;
+    /* Stores the bitmap config set for state images, or null to use the profile's */
+    private static volatile Bitmap.Config bitmapConfig;
+
+
+    private DisplayProfile() {}
+
+    /**
+     * Checks if the device is a low-RAM device, unless already checked or the
+     * low-RAM profile was set explicitly. This is called by the recycler and
+     * skeletons, so it usually never needs to be called directly.
+     *
+     * @param c {@link Context}
+     */
+    public static void init(@NonNull Context c) {
+        if (!initialized) {
+            final ActivityManager am = (ActivityManager)c.getApplicationContext()
+                    .getSystemService(Context.ACTIVITY_SERVICE);
+            lowRam = (am != null && ActivityManagerCompat.isLowRamDevice(am));
+            initialized = true;
+        }
+    }
+
+    /**
+     * Sets whether the low-RAM profile is used, instead of detecting it.
+     * @param enabled True to use the low-RAM profile
+     */
+    public static void setLowRamProfile(boolean enabled) {
+        lowRam = enabled;
+        initialized = true;
+    }
+
+    /**
+     * Checks if the low-RAM profile is used.
+     * @return True if using the low-RAM profile
+     */
+    public static boolean isLowRamProfile() {
+        return lowRam;
+    }
+
+    /**
+     * Sets the bitmap config used for all state images that don't set their own.
+     * {@link Bitmap.Config#RGB_565} is only used for images without alpha.
+     *
+     * @param config {@link Bitmap.Config}, or null to use the profile's default
+     */
+    public static void setBitmapConfig(@Nullable Bitmap.Config config) {
+        bitmapConfig = config;
+    }
+
+    /**
+     * Gets the bitmap config used for state images that don't set their own.
+     * @return {@link Bitmap.Config}
+     */
+    @NonNull
+    public static Bitmap.Config getBitmapConfig() {
+        final Bitmap.Config config = bitmapConfig;
+        if (config != null) {
+            return config;
+        }
+        return lowRam ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    }
+}
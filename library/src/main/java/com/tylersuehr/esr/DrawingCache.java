@@ -0,0 +1,69 @@
+package com.tylersuehr.esr;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Keeps one drawing of a state display, along with the size and config version it was
+ * drawn for; so it's only drawn again when either changes.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+final class DrawingCache<T> {
+    private final Recycler<T> recycler;
+
+    /* Stores the drawing, and what it was drawn for */
+    private T drawing;
+    private int width;
+    private int height;
+    private int version;
+
+
+    DrawingCache(Recycler<T> recycler) {
+        this.recycler = recycler;
+    }
+
+    /**
+     * Gets the drawing if it was drawn for the given size and version.
+     * @return Drawing, or null if none or stale
+     */
+    T get(int width, int height, int version) {
+        return (this.version == version) ? getForSize(width, height) : null;
+    }
+
+    /**
+     * Gets the drawing if it was drawn for the given size, even if for an old version.
+     * @return Drawing, or null if none
+     */
+    T getForSize(int width, int height) {
+        return (drawing != null && this.width == width && this.height == height) ? drawing : null;
+    }
+
+    /**
+     * Replaces the drawing, recycling the old one.
+     */
+    void put(T drawing, int width, int height, int version) {
+        if (this.drawing != null && this.drawing != drawing) {
+            this.recycler.recycle(this.drawing);
+        }
+        this.drawing = drawing;
+        this.width = width;
+        this.height = height;
+        this.version = version;
+    }
+
+    /**
+     * Recycles the drawing, if any.
+     */
+    void clear() {
+        put(null, 0, 0, 0);
+    }
+
+
+    /**
+     * Lets go of drawings that aren't used anymore.
+     */
+    interface Recycler<T> {
+        void recycle(T drawing);
+    }
+}
@@ -0,0 +1,215 @@
+package com.tylersuehr.esr;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Text made of a format with number values (like "Loaded %d of %d"), formatted into
+ * a reused char array; so updating the values never allocates anything.
+ *
+ * In the format, "%d" is a number value and "%%" is a percent sign.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+final class DynamicText {
+    /* Max chars of a formatted long: a sign, 19 digits and 6 grouping separators */
+    static final int MAX_NUMBER_LENGTH = 26;
+
+    /* Stores the literal text before, between and after the values */
+    private final char[][] literals;
+    private final long[] values;
+    /* Stores the formatted length of each value */
+    private final int[] valueLengths;
+    private final char[] chars;
+    private int length;
+    /* Stores the grouping separator of the values, or 0 for none */
+    private char groupingSeparator;
+    private boolean formatted = false;
+    /* Incremented whenever chars move, instead of only digits changing in place */
+    private int layoutVersion;
+
+
+    DynamicText(String format, char groupingSeparator) {
+        if (format == null) {
+            throw new NullPointerException("Format cannot be null!");
+        }
+        final List<char[]> literals = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < format.length(); i++) {
+            final char ch = format.charAt(i);
+            if (ch != '%') {
+                literal.append(ch);
+            } else if (i + 1 < format.length() && format.charAt(i + 1) == '%') {
+                literal.append('%');
+                i++;
+            } else if (i + 1 < format.length() && format.charAt(i + 1) == 'd') {
+                literals.add(literal.toString().toCharArray());
+                literal.setLength(0);
+                i++;
+            } else {
+                throw new IllegalArgumentException("Only %d and %% are supported in the format!");
+            }
+        }
+        literals.add(literal.toString().toCharArray());
+
+        this.literals = literals.toArray(new char[literals.size()][]);
+        this.values = new long[this.literals.length - 1];
+        this.valueLengths = new int[values.length];
+        int maxLength = values.length * MAX_NUMBER_LENGTH;
+        for (char[] chars : this.literals) {
+            maxLength += chars.length;
+        }
+        this.chars = new char[maxLength];
+        this.groupingSeparator = groupingSeparator;
+        for (int i = 0; i < values.length; i++) {
+            this.valueLengths[i] = getNumberLength(0, groupingSeparator);
+        }
+    }
+
+    /**
+     * Gets the amount of number values in the format.
+     * @return Amount of values
+     */
+    int getValueCount() {
+        return values.length;
+    }
+
+    /**
+     * Sets a number value of the text.
+     *
+     * @param index Index of the value in the format
+     * @param value Number value
+     * @return True if the text changed
+     */
+    boolean setValue(int index, long value) {
+        if (index < 0 || index >= values.length) {
+            throw new IllegalArgumentException("No value at index " + index + "!");
+        }
+        if (values[index] == value) {
+            return false;
+        }
+        this.values[index] = value;
+        this.formatted = false;
+        final int valueLength = getNumberLength(value, groupingSeparator);
+        if (valueLengths[index] != valueLength) {
+            this.valueLengths[index] = valueLength;
+            this.layoutVersion++;
+        }
+        return true;
+    }
+
+    long getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Sets the grouping separator of the number values (like ',' for "1,204").
+     *
+     * @param groupingSeparator Separator, or 0 for none
+     * @return True if the text changed
+     */
+    boolean setGroupingSeparator(char groupingSeparator) {
+        if (this.groupingSeparator == groupingSeparator) {
+            return false;
+        }
+        this.groupingSeparator = groupingSeparator;
+        this.formatted = false;
+        for (int i = 0; i < values.length; i++) {
+            this.valueLengths[i] = getNumberLength(values[i], groupingSeparator);
+        }
+        this.layoutVersion++;
+        return true;
+    }
+
+    /**
+     * Gets the version of where the chars of the text are. It only changes when chars
+     * move (like a value getting another digit); otherwise only digits changed in place,
+     * so the text still breaks into lines at the same indices.
+     *
+     * @return Layout version
+     */
+    int getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    /**
+     * Gets the chars of the text, formatting it if the values changed. Only the
+     * first {@link #length()} chars are part of the text.
+     *
+     * @return Reused char array
+     */
+    char[] getChars() {
+        if (!formatted) {
+            int offset = 0;
+            for (int i = 0; i < literals.length; i++) {
+                System.arraycopy(literals[i], 0, chars, offset, literals[i].length);
+                offset += literals[i].length;
+                if (i < values.length) {
+                    offset = formatNumber(values[i], groupingSeparator, chars, offset);
+                }
+            }
+            this.length = offset;
+            this.formatted = true;
+        }
+        return chars;
+    }
+
+    /**
+     * Gets the length of the text.
+     * @return Length
+     */
+    int length() {
+        getChars();
+        return length;
+    }
+
+    /**
+     * Gets the length of the number when formatted.
+     *
+     * @param value Number to format
+     * @param groupingSeparator Separator, or 0 for none
+     * @return Length of the formatted number
+     */
+    static int getNumberLength(long value, char groupingSeparator) {
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        return ((value < 0) ? 1 : 0) + digits + ((groupingSeparator != 0) ? (digits - 1) / 3 : 0);
+    }
+
+    /**
+     * Formats the number into the char array, with a grouping separator every 3 digits.
+     *
+     * @param value Number to format
+     * @param groupingSeparator Separator, or 0 for none
+     * @param dest Char array to format into
+     * @param offset Index to format at
+     * @return Index after the formatted number
+     */
+    static int formatNumber(long value, char groupingSeparator, char[] dest, int offset) {
+        // Digits are taken from the negative value, since Long.MIN_VALUE can't be negated
+        if (value < 0) {
+            dest[offset++] = '-';
+        } else {
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+
+        final int end = offset + digits + ((groupingSeparator != 0) ? (digits - 1) / 3 : 0);
+        int index = end;
+        for (int i = 0; i < digits; i++) {
+            if (groupingSeparator != 0 && i > 0 && i % 3 == 0) {
+                dest[--index] = groupingSeparator;
+            }
+            dest[--index] = (char)('0' - (value % 10));
+            value /= 10;
+        }
+        return end;
+    }
+}
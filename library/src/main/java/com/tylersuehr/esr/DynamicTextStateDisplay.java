@@ -0,0 +1,327 @@
+package com.tylersuehr.esr;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.v4.view.GravityCompat;
+import android.support.v4.view.ViewCompat;
+import android.text.TextPaint;
+import android.util.DisplayMetrics;
+import android.view.Gravity;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Subclass of {@link AbstractStateDisplay} that draws a text with number values, which can
+ * be updated many times per second (like "Retrying in %ds" or "Loaded %d of %d").
+ *
+ * The values are formatted into a reused char array and drawn directly, without a layout;
+ * the text is only wrapped again when a value's length, the width, or the paint changes
+ * (or a line no longer fits), and otherwise just measured, so updating the values doesn't
+ * allocate anything. Invalidate the recycler after updating the values.
+ *
+ * In the format, "%d" is a number value and "%%" is a percent sign.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+public class DynamicTextStateDisplay extends AbstractStateDisplay {
+    /* Line spacing of wrapped text, same as the other text displays */
+    private static final float LINE_SPACING = 1.15f;
+
+    private final DynamicText text;
+    private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    /* Stores the grouping separator of the locale */
+    private final char groupingSeparator;
+
+    /* Stores the wrapped lines (start, end and width of each) of the text */
+    private int[] lineStarts = new int[2];
+    private int[] lineEnds = new int[2];
+    private float[] lineWidths = new float[2];
+    private int lineCount;
+    private boolean linesValid = false;
+    private int linesMaxWidth;
+    private int linesLayoutVersion;
+    /* False if digits changed in place, so the lines are only measured again */
+    private boolean lineWidthsValid = true;
+
+    /* Stores the font metrics of the paint */
+    private final Paint.FontMetricsInt fontMetrics = new Paint.FontMetricsInt();
+    private boolean metricsValid = false;
+
+    /* Stores the gravity for the text */
+    private int textGravity = Gravity.CENTER;
+
+
+    public DynamicTextStateDisplay(Context c, @NonNull String format) {
+        this.groupingSeparator = DecimalFormatSymbols.getInstance().getGroupingSeparator();
+        this.text = new DynamicText(format, groupingSeparator);
+        DisplayMetrics dm = c.getResources().getDisplayMetrics();
+
+        // Setup default sizes
+        final int large = (int)(16f * dm.density);
+        setPadding(large, large, large, large);
+
+        // Setup text defaults
+        this.textPaint.setTextAlign(Paint.Align.CENTER);
+        this.textPaint.setTextSize(16f * dm.scaledDensity);
+        this.textPaint.setColor(Color.GRAY);
+    }
+
+    @Override
+    public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {
+        final int width = rv.getMeasuredWidth();
+        final int height = rv.getMeasuredHeight();
+        final char[] chars = text.getChars();
+        final int maxWidth = width - getPaddingLeft() - getPaddingRight();
+        if (!linesValid || linesMaxWidth != maxWidth || linesLayoutVersion != text.getLayoutVersion()) {
+            breakLines(chars, text.length(), maxWidth);
+        } else if (!lineWidthsValid && !measureLines(chars, maxWidth)) {
+            // A line got too wide for its new digits
+            breakLines(chars, text.length(), maxWidth);
+        }
+        if (!metricsValid) {
+            this.textPaint.getFontMetricsInt(fontMetrics);
+            this.metricsValid = true;
+        }
+
+        final int lineHeight = fontMetrics.descent - fontMetrics.ascent;
+        final int spacedLineHeight = (int)(lineHeight * LINE_SPACING + 0.5f);
+        final int textHeight = (lineCount > 1)
+                ? (lineCount - 1) * spacedLineHeight + lineHeight
+                : lineHeight;
+        final int fullHeight = textHeight + getPaddingTop() + getPaddingBottom();
+
+        // Account for vertical text gravity
+        final int verticalGravity = textGravity&Gravity.VERTICAL_GRAVITY_MASK;
+        float dy;
+        switch (verticalGravity) {
+            case Gravity.CENTER_VERTICAL:
+                dy = (height >> 1) - (fullHeight >> 1);
+                break;
+            case Gravity.BOTTOM:
+                dy = height - fullHeight;
+                break;
+            default:
+            case Gravity.TOP:
+                dy = 0;
+                break;
+        }
+        dy += getPaddingTop() - fontMetrics.ascent;
+
+        final int horizontalGravity = Gravity.getAbsoluteGravity(textGravity,
+                ViewCompat.getLayoutDirection(rv))&Gravity.HORIZONTAL_GRAVITY_MASK;
+
+        // Draw each line of the text
+        for (int i = 0; i < lineCount; i++) {
+            canvas.drawText(chars, lineStarts[i], lineEnds[i] - lineStarts[i],
+                    getDx(width, horizontalGravity, lineWidths[i]), dy, textPaint);
+            dy += spacedLineHeight;
+        }
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        this.linesValid = false;
+    }
+
+    /**
+     * Sets the first number value of the text.
+     * @param value Number value
+     */
+    public void setValue(long value) {
+        setValue(0, value);
+    }
+
+    /**
+     * Sets a number value of the text.
+     *
+     * @param index Index of the value in the format
+     * @param value Number value
+     *
+     * @throws IllegalArgumentException if the format has no value at the index
+     */
+    public void setValue(int index, long value) {
+        if (text.setValue(index, value)) {
+            // Lines are broken again if the value's length changed, otherwise only measured
+            this.lineWidthsValid = false;
+            notifyConfigChanged();
+        }
+    }
+
+    /**
+     * Gets a number value of the text.
+     * @param index Index of the value in the format
+     * @return Number value
+     */
+    public long getValue(int index) {
+        if (index < 0 || index >= text.getValueCount()) {
+            throw new IllegalArgumentException("No value at index " + index + "!");
+        }
+        return text.getValue(index);
+    }
+
+    /**
+     * Sets whether the number values are grouped with the separator of the locale
+     * (like "1,204"). Grouping is used by default.
+     *
+     * @param groupingUsed True to group the number values
+     */
+    public void setGroupingUsed(boolean groupingUsed) {
+        if (text.setGroupingSeparator(groupingUsed ? groupingSeparator : 0)) {
+            this.linesValid = false;
+            notifyConfigChanged();
+        }
+    }
+
+    /**
+     * Sets the overall alignment for the text (supports all gravity variations
+     * except for RIGHT and END).
+     * @param gravity Text gravity
+     */
+    public void setTextGravity(int gravity) {
+        // Let's adjust paint alignment to fit horizontal gravity (END not supported)
+        final int horizontalGravity = Gravity.getAbsoluteGravity(gravity,
+                ViewCompat.LAYOUT_DIRECTION_LTR)&Gravity.HORIZONTAL_GRAVITY_MASK;
+        switch (horizontalGravity) {
+            case GravityCompat.START:
+                this.textPaint.setTextAlign(Paint.Align.LEFT);
+                break;
+            case Gravity.CENTER_HORIZONTAL:
+                this.textPaint.setTextAlign(Paint.Align.CENTER);
+                break;
+        }
+        this.textGravity = gravity;
+        notifyConfigChanged();
+    }
+
+    /**
+     * Sets the text color of the text.
+     * @param color Text color
+     */
+    public void setTextColor(@ColorInt int color) {
+        this.textPaint.setColor(color);
+        notifyConfigChanged();
+    }
+
+    /**
+     * Sets the text size of the text.
+     * @param textSize Text size
+     */
+    public void setTextSize(float textSize) {
+        this.textPaint.setTextSize(textSize);
+        invalidatePaint();
+    }
+
+    /**
+     * Sets the typeface used to draw the text.
+     * @param typeface {@link Typeface}
+     */
+    public void setTypeface(Typeface typeface) {
+        this.textPaint.setTypeface(typeface);
+        invalidatePaint();
+    }
+
+    private void invalidatePaint() {
+        this.linesValid = false;
+        this.metricsValid = false;
+        notifyConfigChanged();
+    }
+
+    private float getDx(final int width, final int horizontalGravity, final float lineWidth) {
+        final boolean centered = textPaint.getTextAlign() == Paint.Align.CENTER;
+        final float dx;
+        switch (horizontalGravity) { // No support for GravityCompat.END
+            case Gravity.CENTER_HORIZONTAL:
+                dx = (width >> 1) - (centered ? 0 : ((int)lineWidth >> 1) - getPaddingLeft());
+                break;
+            default:
+            case GravityCompat.START:
+                dx = getPaddingLeft();
+                break;
+        }
+        return dx;
+    }
+
+    /**
+     * Wraps the text into lines that fit in the max width, breaking between words
+     * when possible.
+     */
+    private void breakLines(final char[] chars, final int length, final int maxWidth) {
+        this.lineCount = 0;
+        int start = 0;
+        do {
+            int paragraphEnd = start;
+            while (paragraphEnd < length && chars[paragraphEnd] != '\n') {
+                paragraphEnd++;
+            }
+
+            int lineEnd = start + textPaint.breakText(chars, start, paragraphEnd - start, Math.max(0, maxWidth), null);
+            int next = lineEnd;
+            if (lineEnd < paragraphEnd) {
+                // Break after the last word that fits, or mid-word if no word fits
+                int space = lineEnd;
+                while (space > start && chars[space] != ' ') {
+                    space--;
+                }
+                if (space > start) {
+                    lineEnd = space;
+                    next = space + 1;
+                } else if (lineEnd == start) {
+                    lineEnd = next = start + 1;
+                }
+            } else if (paragraphEnd < length) {
+                next = paragraphEnd + 1; // Skip the line break
+            }
+
+            addLine(start, lineEnd, textPaint.measureText(chars, start, lineEnd - start));
+            start = next;
+        } while (start < length);
+
+        this.linesValid = true;
+        this.linesMaxWidth = maxWidth;
+        this.linesLayoutVersion = text.getLayoutVersion();
+        this.lineWidthsValid = true;
+    }
+
+    /**
+     * Measures the lines again, after digits changed in place.
+     * @return True if all lines still fit in the max width
+     */
+    private boolean measureLines(final char[] chars, final int maxWidth) {
+        for (int i = 0; i < lineCount; i++) {
+            final float width = textPaint.measureText(chars, lineStarts[i], lineEnds[i] - lineStarts[i]);
+            if (width > maxWidth && lineEnds[i] - lineStarts[i] > 1) {
+                return false;
+            }
+            this.lineWidths[i] = width;
+        }
+        this.lineWidthsValid = true;
+        return true;
+    }
+
+    private void addLine(int start, int end, float width) {
+        if (lineCount == lineStarts.length) {
+            // Only grows when the text wraps into more lines than ever before
+            final int capacity = lineCount << 1;
+            final int[] starts = new int[capacity];
+            final int[] ends = new int[capacity];
+            final float[] widths = new float[capacity];
+            System.arraycopy(lineStarts, 0, starts, 0, lineCount);
+            System.arraycopy(lineEnds, 0, ends, 0, lineCount);
+            System.arraycopy(lineWidths, 0, widths, 0, lineCount);
+            this.lineStarts = starts;
+            this.lineEnds = ends;
+            this.lineWidths = widths;
+        }
+        this.lineStarts[lineCount] = start;
+        this.lineEnds[lineCount] = end;
+        this.lineWidths[lineCount] = width;
+        this.lineCount++;
+    }
+}
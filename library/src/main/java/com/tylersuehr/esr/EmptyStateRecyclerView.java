@@ -1,11 +1,21 @@
 package com.tylersuehr.esr;
+import android.animation.ObjectAnimator;
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.util.SparseArray;
+import android.view.View;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Copyright © 2017 Tyler Suehr
@@ -27,16 +37,87 @@ public class EmptyStateRecyclerView extends RecyclerView {
     public static final byte STATE_ERROR    = 2;
     public static final byte STATE_OK       = 3;
 
-    /* Stores the state the recycler is in */
-    private byte state = STATE_OK;
+    /* Stores the state the recycler is in, and all the available states that can be displayed */
+    private final StateStore stateStore = new StateStore(STATE_OK);
 
-    /* Stores all the available states that can be displayed */
-    @NonNull
-    private SparseArray<StateDisplay> stateDisplays = new SparseArray<>();
+    /* Stores the most recently invoked state, applied on the main thread */
+    private volatile byte requestedState = STATE_OK;
+    /* Posts to the main thread even while detached; views only run what's posted to them
+       while attached, and before API 24 they queue it per thread, so posts from another
+       thread before we're attached would be lost */
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    /* True if applying the requested state has been posted */
+    private final AtomicBoolean stateChangePosted = new AtomicBoolean(false);
+    private final Runnable applyStateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applyRequestedState();
+        }
+    };
+
+    /* Properties for the show policy (delay and minimum show time) of each state */
+    private long[] showDelays = new long[0];
+    private long[] minShowTimes = new long[0];
+    /* Stores the state waiting on its show policy, and since when */
+    private byte pendingState = STATE_OK;
+    private long pendingSince;
+    /* Stores when the current state was shown */
+    private long shownSince;
+    private final Runnable delayedStateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applyRequestedState();
+        }
+    };
+
+    /* Properties for deriving the state from the adapter */
+    private static final long DEFAULT_ADAPTER_STATE_DEBOUNCE = 100;
+    private boolean adapterStateEnabled = false;
+    private long adapterStateDebounce = DEFAULT_ADAPTER_STATE_DEBOUNCE;
+    private Adapter<?> observedAdapter;
+    /* True if the adapter's items changed since the loading state was invoked */
+    private volatile boolean adapterChangedSinceLoading = false;
+    private final AdapterDataObserver adapterObserver = new AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            onAdapterChanged();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            onAdapterChanged();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            onAdapterChanged();
+        }
+    };
+    private final Runnable adapterStateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applyAdapterState();
+        }
+    };
 
     /* Stores observer for changes to our state value */
     private OnStateChangedListener onStateChangedListener;
 
+    /* True if subscribed to frames of the animation clock */
+    private boolean animating = false;
+    /* Reused to get the dirty bounds of the animated display */
+    private final Rect animatedBounds = new Rect();
+    private boolean attached = false;
+
+    /* Draws the layer animated display in a hardware layer, whose alpha is pulsed */
+    private StateLayerView layerView;
+    private ObjectAnimator layerAnimator;
+
+    /* Bit mask of stock states whose default displays haven't been created yet */
+    private int pendingDefaults = (1 << STATE_LOADING) | (1 << STATE_EMPTY) | (1 << STATE_ERROR);
+    /* Stores the texts for the default displays (null to use the default texts) */
+    private String[] defaultTexts;
+
 
     public EmptyStateRecyclerView(Context context) {
         this(context, null);
@@ -48,39 +129,112 @@ public class EmptyStateRecyclerView extends RecyclerView {
 
     public EmptyStateRecyclerView(Context c, @Nullable AttributeSet attrs, int defStyle) {
         super(c, attrs, defStyle);
+        DisplayProfile.init(c);
 
-        // Setup default states
-        this.stateDisplays.put(STATE_LOADING, new DefaultLoadingState(c, "Loading..."));
-        this.stateDisplays.put(STATE_EMPTY, new DefaultEmptyState(c, "No Content", "AWWW...!"));
-        this.stateDisplays.put(STATE_ERROR, new DefaultEmptyState(c, "Something Went Wrong", "SORRY...!"));
+        // Default states are only created when first shown, so just keep their texts
+        if (attrs != null) {
+            TypedArray a = c.obtainStyledAttributes(attrs, R.styleable.EmptyStateRecyclerView);
+            this.defaultTexts = new String[] {
+                    a.getString(R.styleable.EmptyStateRecyclerView_esr_loadingTitle),
+                    a.getString(R.styleable.EmptyStateRecyclerView_esr_emptyTitle),
+                    a.getString(R.styleable.EmptyStateRecyclerView_esr_emptySubtitle),
+                    a.getString(R.styleable.EmptyStateRecyclerView_esr_errorTitle),
+                    a.getString(R.styleable.EmptyStateRecyclerView_esr_errorSubtitle)
+            };
+            a.recycle();
+        }
     }
 
     @Override
     protected void dispatchDraw(Canvas canvas) {
         super.dispatchDraw(canvas);
 
-        final StateDisplay display;
-        synchronized (this) {
-            display = stateDisplays.get(state);
+        // Single volatile read of an immutable snapshot; no locking per frame
+        final StateDisplay display = getCurrentDisplay();
+        if (display != null) {
+            if (layerView == null || layerView.getStateDisplay() != display) {
+                display.onDrawState(this, canvas); // Otherwise drawn by our overlay
+            }
+            if (isDisplayAnimationStale(display)) {
+                // The display changed how it animates since we last checked
+                updateDisplayAnimation();
+            }
         }
+    }
 
-        if (display != null) {
-            display.onDrawState(this, canvas);
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        this.attached = true;
+        updateDisplayAnimation();
+        updateAdapterObserver();
+
+        // Resume applying a state that was waiting on its show policy
+        if (requestedState != stateStore.get().state) {
+            postApplyState();
         }
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        this.attached = false;
+        updateDisplayAnimation();
+        updateAdapterObserver();
+        this.mainHandler.removeCallbacks(delayedStateRunnable);
+        releaseDisplays(stateStore.get(), null);
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (layerView != null) {
+            this.layerView.layout(0, 0, w, h);
+        }
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateDisplayAnimation();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateDisplayAnimation();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void setAdapter(Adapter adapter) {
+        super.setAdapter(adapter);
+        updateAdapterObserver();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void swapAdapter(Adapter adapter, boolean removeAndRecycleExistingViews) {
+        super.swapAdapter(adapter, removeAndRecycleExistingViews);
+        updateAdapterObserver();
+    }
+
     /**
      * Sets the state display for the given state.
      *
      * @param state {@link #STATE_LOADING}, {@link #STATE_EMPTY},
-     * {@link #STATE_ERROR}, or {@link #STATE_OK}
+     * {@link #STATE_ERROR}, {@link #STATE_OK}, or a registered state
      * @param display {@link StateDisplay}
      */
     public void setStateDisplay(byte state, StateDisplay display) {
         if (display == null) {
             throw new NullPointerException("State display cannot be null!");
         }
-        this.stateDisplays.put(state, display);
+        final StateStore.Snapshot old = stateStore.get();
+        this.stateStore.putDisplay(state, display);
+        releaseDisplays(old, stateStore.get());
+        clearPendingDefault(state);
+        updateDisplayAnimation();
         requestLayout();
         invalidate();
     }
@@ -89,7 +243,7 @@ public class EmptyStateRecyclerView extends RecyclerView {
      * Sets multiple state displays for the given states.
      *
      * @param states Array of {@link #STATE_LOADING}, {@link #STATE_EMPTY},
-     * {@link #STATE_ERROR}, or {@link #STATE_OK}
+     * {@link #STATE_ERROR}, {@link #STATE_OK}, or a registered state
      * @param displays Array of {@link StateDisplay}
      */
     public void setStateDisplays(byte[] states, StateDisplay[] displays) {
@@ -100,9 +254,13 @@ public class EmptyStateRecyclerView extends RecyclerView {
             throw new IllegalArgumentException("The amount of given states do " +
                     "not correspond to the amount of given displays!");
         }
-        for (int i = 0; i < states.length; i++) {
-            this.stateDisplays.put(states[i], displays[i]);
+        final StateStore.Snapshot old = stateStore.get();
+        this.stateStore.putDisplays(states, displays);
+        releaseDisplays(old, stateStore.get());
+        for (byte state : states) {
+            clearPendingDefault(state);
         }
+        updateDisplayAnimation();
         requestLayout();
         invalidate();
     }
@@ -111,12 +269,14 @@ public class EmptyStateRecyclerView extends RecyclerView {
      * Removes the state display for a given state.
      *
      * @param state {@link #STATE_LOADING}, {@link #STATE_EMPTY},
-     * {@link #STATE_ERROR}, or {@link #STATE_OK}
+     * {@link #STATE_ERROR}, {@link #STATE_OK}, or a registered state
      */
     public void removeStateDisplay(byte state) {
-        final int index = stateDisplays.indexOfKey(state);
-        if (index > -1) {
-            this.stateDisplays.removeAt(index);
+        final boolean removedDefault = clearPendingDefault(state);
+        final StateStore.Snapshot old = stateStore.get();
+        if (stateStore.removeDisplay(state) || removedDefault) {
+            releaseDisplays(old, stateStore.get());
+            updateDisplayAnimation();
             requestLayout();
             invalidate();
         }
@@ -126,8 +286,12 @@ public class EmptyStateRecyclerView extends RecyclerView {
      * Removes all state displays for all states.
      */
     public void clearStateDisplays() {
-        if (stateDisplays.size() > 0) {
-            this.stateDisplays.clear();
+        final boolean removedDefaults = (pendingDefaults != 0);
+        this.pendingDefaults = 0;
+        final StateStore.Snapshot old = stateStore.get();
+        if (stateStore.clearDisplays() || removedDefaults) {
+            releaseDisplays(old, null);
+            updateDisplayAnimation();
             requestLayout();
             invalidate();
         }
@@ -136,16 +300,51 @@ public class EmptyStateRecyclerView extends RecyclerView {
     /**
      * Invokes the given state.
      *
+     * This is safe to call from any thread. The state is applied on the main thread
+     * as soon as possible, and all states invoked before then are coalesced,
+     * so only the last one is drawn and reported to {@link OnStateChangedListener}.
+     *
      * @param state {@link #STATE_LOADING}, {@link #STATE_EMPTY},
-     * {@link #STATE_ERROR}, or {@link #STATE_OK}
+     * {@link #STATE_ERROR}, {@link #STATE_OK}, or a registered state
      */
     public void invokeState(byte state) {
-        if (this.state == state) { return; }
-        this.state = state;
-        invalidate();
-        if (onStateChangedListener != null) {
-            this.onStateChangedListener.onStateChanged(state);
+        if (state == STATE_LOADING) {
+            this.adapterChangedSinceLoading = false;
         }
+        this.requestedState = state;
+        postApplyState();
+    }
+
+    /**
+     * Registers a custom state, in addition to the stock states, that can have its own
+     * state display and be invoked like any other state. Registering the same name
+     * again returns the same state, which is shared by all recyclers.
+     *
+     * @param name Unique name of the state
+     * @return Compact id of the state, to use with {@link #setStateDisplay(byte, StateDisplay)}
+     * and {@link #invokeState(byte)}
+     */
+    public static byte registerState(@NonNull String name) {
+        return StateRegistry.register(name);
+    }
+
+    /**
+     * Gets the name a state was registered with.
+     *
+     * @param state Id of the state
+     * @return Name of the state, or null if not registered
+     */
+    @Nullable
+    public static String getStateName(byte state) {
+        return StateRegistry.getName(state);
+    }
+
+    /**
+     * Gets the most recently invoked state.
+     * @return Id of the state
+     */
+    public byte getState() {
+        return requestedState;
     }
 
     /**
@@ -153,7 +352,7 @@ public class EmptyStateRecyclerView extends RecyclerView {
      * @return True if empty state
      */
     public boolean isEmptyState() {
-        return (state == STATE_EMPTY);
+        return (requestedState == STATE_EMPTY);
     }
 
     /**
@@ -161,7 +360,7 @@ public class EmptyStateRecyclerView extends RecyclerView {
      * @return True if empty state
      */
     public boolean isErrorState() {
-        return (state == STATE_ERROR);
+        return (requestedState == STATE_ERROR);
     }
 
     /**
@@ -169,7 +368,7 @@ public class EmptyStateRecyclerView extends RecyclerView {
      * @return True if empty state
      */
     public boolean isLoadingState() {
-        return (state == STATE_LOADING);
+        return (requestedState == STATE_LOADING);
     }
 
     /**
@@ -177,7 +376,58 @@ public class EmptyStateRecyclerView extends RecyclerView {
      * @return True if empty state
      */
     public boolean isOkState() {
-        return (state == STATE_OK);
+        return (requestedState == STATE_OK);
+    }
+
+    /**
+     * Sets the show policy for the given state, similar to a content loading progress
+     * bar. The state is only shown after it has been invoked for the show delay; if
+     * another state is invoked before then, it's never drawn or animated at all. Once
+     * shown, it stays shown for at least the minimum show time.
+     *
+     * Note: show policies are applied on the main thread, so set them there.
+     *
+     * @param state {@link #STATE_LOADING}, {@link #STATE_EMPTY},
+     * {@link #STATE_ERROR}, {@link #STATE_OK}, or a registered state
+     * @param showDelayMillis Time the state must be invoked before it's shown
+     * @param minShowMillis Minimum time the state stays shown
+     */
+    public void setStateShowPolicy(byte state, long showDelayMillis, long minShowMillis) {
+        if (state < 0) {
+            throw new IllegalArgumentException("State cannot be negative!");
+        }
+        if (state >= showDelays.length) {
+            this.showDelays = Arrays.copyOf(showDelays, state + 1);
+            this.minShowTimes = Arrays.copyOf(minShowTimes, state + 1);
+        }
+        this.showDelays[state] = showDelayMillis;
+        this.minShowTimes[state] = minShowMillis;
+    }
+
+    /**
+     * Sets if the state should be derived from the adapter. When enabled, the state
+     * is automatically invoked as {@link #STATE_OK} when the adapter has items, and as
+     * {@link #STATE_EMPTY} when it has none. The loading state is resolved by the first
+     * change to the adapter's items after it was invoked, so invoke it (after clearing any
+     * old items) before loading, and it turns into the empty or ok state once the loaded
+     * items are set. Other states (like error) are only left when the adapter gets items.
+     *
+     * @param enabled True to derive the state from the adapter
+     */
+    public void setAdapterStateEnabled(boolean enabled) {
+        this.adapterStateEnabled = enabled;
+        updateAdapterObserver();
+    }
+
+    /**
+     * Sets how long adapter changes must settle before the state is derived from them,
+     * so that something like removing all items and then inserting new ones doesn't
+     * flash the empty state.
+     *
+     * @param debounceMillis Debounce time in milliseconds
+     */
+    public void setAdapterStateDebounce(long debounceMillis) {
+        this.adapterStateDebounce = debounceMillis;
     }
 
     public void setOnStateChangedListener(OnStateChangedListener listener) {
@@ -188,6 +438,289 @@ public class EmptyStateRecyclerView extends RecyclerView {
         return onStateChangedListener;
     }
 
+    private void postApplyState() {
+        if (stateChangePosted.compareAndSet(false, true)) {
+            this.mainHandler.post(applyStateRunnable);
+        }
+    }
+
+    /**
+     * Applies the most recently invoked state; always called on the main thread.
+     */
+    private void applyRequestedState() {
+        // Clear the flag before reading, so any state invoked after this is posted again
+        this.stateChangePosted.set(false);
+        this.mainHandler.removeCallbacks(delayedStateRunnable);
+
+        final byte state = requestedState;
+        final byte shownState = stateStore.get().state;
+        if (state == shownState) {
+            // Invoked states were cancelled out before being shown
+            this.pendingState = state;
+            return;
+        }
+
+        // Wait for the shown state's minimum show time and the new state's show delay
+        final long now = SystemClock.uptimeMillis();
+        if (state != pendingState) {
+            this.pendingState = state;
+            this.pendingSince = now;
+        }
+        final long showAt = Math.max(
+                shownSince + getPolicyTime(minShowTimes, shownState),
+                pendingSince + getPolicyTime(showDelays, state));
+        if (showAt > now) {
+            this.mainHandler.postDelayed(delayedStateRunnable, showAt - now);
+            return;
+        }
+
+        this.stateStore.setState(state);
+        this.shownSince = now;
+        updateDisplayAnimation();
+        invalidate();
+        if (onStateChangedListener != null) {
+            this.onStateChangedListener.onStateChanged(state);
+        }
+    }
+
+    /**
+     * Redraws the current state display after it changed how it's drawn or animated
+     * (like its shimmer mode), starting or stopping its animation as needed. The stock
+     * displays call this themselves when changed.
+     */
+    public void invalidateStateDisplay() {
+        if (layerView != null) {
+            this.layerView.invalidate();
+            // Set up the animator again, so it picks up changes (like a new duration)
+            this.layerAnimator.cancel();
+            startLayerAnimator();
+        }
+        updateDisplayAnimation();
+        invalidate();
+    }
+
+    /**
+     * Registers our observer on the current adapter if deriving the state from it,
+     * making sure it's never left registered on an old adapter or while detached.
+     */
+    private void updateAdapterObserver() {
+        final Adapter<?> adapter = (adapterStateEnabled && attached) ? getAdapter() : null;
+        if (adapter == observedAdapter) { return; }
+
+        if (observedAdapter != null) {
+            this.observedAdapter.unregisterAdapterDataObserver(adapterObserver);
+        }
+        this.observedAdapter = adapter;
+        if (adapter != null) {
+            adapter.registerAdapterDataObserver(adapterObserver);
+            scheduleAdapterState();
+        } else {
+            removeCallbacks(adapterStateRunnable);
+        }
+    }
+
+    private void onAdapterChanged() {
+        this.adapterChangedSinceLoading = true;
+        scheduleAdapterState();
+    }
+
+    private void scheduleAdapterState() {
+        removeCallbacks(adapterStateRunnable);
+        postDelayed(adapterStateRunnable, adapterStateDebounce);
+    }
+
+    private void applyAdapterState() {
+        if (observedAdapter == null) { return; }
+        final int state = deriveAdapterState(requestedState,
+                observedAdapter.getItemCount(), adapterChangedSinceLoading);
+        if (state >= 0) {
+            invokeState((byte)state);
+        }
+    }
+
+    /**
+     * Derives the state from the adapter.
+     *
+     * @param requestedState Most recently invoked state
+     * @param itemCount Amount of items in the adapter
+     * @param changedSinceLoading True if the items changed since loading was invoked
+     * @return State to invoke, or -1 to keep the requested state
+     */
+    static int deriveAdapterState(byte requestedState, int itemCount, boolean changedSinceLoading) {
+        if (requestedState == STATE_LOADING && !changedSinceLoading) {
+            // Only the loaded items resolve loading, not the items shown while refreshing
+            return -1;
+        }
+        if (itemCount > 0) {
+            return STATE_OK;
+        }
+        return (requestedState == STATE_OK || requestedState == STATE_LOADING) ? STATE_EMPTY : -1;
+    }
+
+    /**
+     * Gets the display for the current state, creating the default display for the
+     * state if it's still pending.
+     */
+    private StateDisplay getCurrentDisplay() {
+        final StateStore.Snapshot snapshot = stateStore.get();
+        final StateDisplay display = snapshot.getCurrentDisplay();
+        if (display == null && clearPendingDefault(snapshot.state)) {
+            final StateDisplay defaultDisplay = createDefaultDisplay(snapshot.state);
+            this.stateStore.putDisplay(snapshot.state, defaultDisplay);
+            return defaultDisplay;
+        }
+        return display;
+    }
+
+    private StateDisplay createDefaultDisplay(byte state) {
+        final Context c = getContext();
+        switch (state) {
+            case STATE_LOADING:
+                return new DefaultLoadingState(c,
+                        getDefaultText(c, 0, R.string.esr_default_loading_title));
+            case STATE_EMPTY:
+                return new DefaultEmptyState(c,
+                        getDefaultText(c, 1, R.string.esr_default_empty_title),
+                        getDefaultText(c, 2, R.string.esr_default_empty_subtitle));
+            default:
+                return new DefaultEmptyState(c,
+                        getDefaultText(c, 3, R.string.esr_default_error_title),
+                        getDefaultText(c, 4, R.string.esr_default_error_subtitle));
+        }
+    }
+
+    private String getDefaultText(Context c, int index, int defaultRes) {
+        final String text = (defaultTexts != null) ? defaultTexts[index] : null;
+        return (text != null) ? text : c.getString(defaultRes);
+    }
+
+    /**
+     * Stops the default display of the given state from being created.
+     * @return True if the default display was still pending
+     */
+    private boolean clearPendingDefault(byte state) {
+        if (state < 0 || state > STATE_ERROR) { return false; }
+        final int bit = (1 << state);
+        final boolean pending = (pendingDefaults & bit) != 0;
+        this.pendingDefaults &= ~bit;
+        return pending;
+    }
+
+    /**
+     * Lets go of the resources of all releasable displays in the old snapshot that
+     * aren't in the new snapshot anymore.
+     *
+     * @param old Snapshot before the change
+     * @param now Snapshot after the change, or null to release all displays
+     */
+    private void releaseDisplays(StateStore.Snapshot old, StateStore.Snapshot now) {
+        for (int i = 0; i < old.getDisplayCount(); i++) {
+            final StateDisplay display = old.getDisplay(i);
+            if (display instanceof ReleasableStateDisplay && (now == null || !now.containsDisplay(display))) {
+                ((ReleasableStateDisplay)display).onReleaseState(this);
+            }
+        }
+    }
+
+    private static long getPolicyTime(long[] times, byte state) {
+        return (state >= 0 && state < times.length) ? times[state] : 0;
+    }
+
+    /**
+     * Called by {@link AnimationFrameClock} on every frame while subscribed.
+     */
+    void onAnimationFrame() {
+        final StateDisplay display = getCurrentDisplay();
+        if (display instanceof AnimatedStateDisplay) {
+            // Only invalidate the region the animated display draws into
+            this.animatedBounds.setEmpty();
+            ((AnimatedStateDisplay)display).getAnimatedBounds(this, animatedBounds);
+            if (!animatedBounds.isEmpty()) {
+                invalidate(animatedBounds);
+                return;
+            }
+        }
+        invalidate();
+    }
+
+    /**
+     * Subscribes to, or unsubscribes from, the {@link AnimationFrameClock} so that we
+     * only animate while an animated state display can actually be seen.
+     */
+    private void updateDisplayAnimation() {
+        final boolean visible = attached && isShown() && getWindowVisibility() == VISIBLE;
+        final StateDisplay display = visible ? getCurrentDisplay() : null;
+        final boolean shouldAnimate = visible
+                && display instanceof AnimatedStateDisplay
+                && ((AnimatedStateDisplay)display).isAnimating();
+
+        if (animating != shouldAnimate) {
+            this.animating = shouldAnimate;
+            if (shouldAnimate) {
+                AnimationFrameClock.getInstance().subscribe(this);
+            } else {
+                AnimationFrameClock.getInstance().unsubscribe(this);
+            }
+        }
+
+        final boolean shouldLayerAnimate = visible && wantsLayerAnimation(display);
+        if (layerView != null && (!shouldLayerAnimate || layerView.getStateDisplay() != display)) {
+            stopLayerAnimation();
+        }
+        if (shouldLayerAnimate && layerView == null) {
+            startLayerAnimation((LayerAnimatedStateDisplay)display);
+        }
+    }
+
+    /**
+     * Checks if the display wants to animate differently than it currently is.
+     */
+    private boolean isDisplayAnimationStale(StateDisplay display) {
+        final boolean wantsFrames = display instanceof AnimatedStateDisplay
+                && ((AnimatedStateDisplay)display).isAnimating();
+        return wantsFrames != animating || wantsLayerAnimation(display) != (layerView != null);
+    }
+
+    /**
+     * Checks if the display wants the layer animation, which needs a view overlay
+     * (API 18); before that, layer animated displays are drawn without animating.
+     */
+    private static boolean wantsLayerAnimation(StateDisplay display) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && display instanceof LayerAnimatedStateDisplay
+                && ((LayerAnimatedStateDisplay)display).isLayerAnimating();
+    }
+
+    /**
+     * Pulses the alpha of a hardware layer the display is drawn into, in our overlay.
+     * The display is only drawn into the layer when it changes; every frame just sets
+     * the alpha of the layer, which is composited on the render thread, so neither
+     * the display nor the recycler (its children and decorations) is drawn again.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private void startLayerAnimation(LayerAnimatedStateDisplay display) {
+        this.layerView = new StateLayerView(this, display);
+        this.layerView.attach();
+        startLayerAnimator();
+        invalidate(); // Stop drawing the display ourselves
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private void startLayerAnimator() {
+        this.layerAnimator = ObjectAnimator.ofFloat(layerView, View.ALPHA, 1f);
+        this.layerView.getStateDisplay().onSetupLayerAnimator(layerAnimator);
+        this.layerAnimator.start();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private void stopLayerAnimation() {
+        this.layerAnimator.cancel();
+        this.layerAnimator = null;
+        this.layerView.detach();
+        this.layerView = null;
+        invalidate(); // Draw the display ourselves again
+    }
+
     /**
      * Defines methods for our states that will be drawn.
      */
@@ -196,7 +729,70 @@ public class EmptyStateRecyclerView extends RecyclerView {
     }
 
     /**
-     * Callbacks for state changes.
+     * Defines methods for state displays that animate. Animated displays don't own
+     * animators; instead they read {@link AnimationFrameClock} when drawn, and we only
+     * request frames while the display can be seen by the user.
+     */
+    public interface AnimatedStateDisplay extends StateDisplay {
+        /**
+         * Checks if the display currently wants animation frames.
+         * @return True if animating
+         */
+        boolean isAnimating();
+
+        /**
+         * Gets the bounds that change while animating, so only that region is
+         * invalidated on each frame. Leave the bounds empty to invalidate the
+         * whole recycler.
+         *
+         * @param rv {@link EmptyStateRecyclerView} showing the display
+         * @param outBounds {@link Rect} to set, in recycler coordinates
+         */
+        void getAnimatedBounds(EmptyStateRecyclerView rv, Rect outBounds);
+    }
+
+    /**
+     * Defines methods for state displays that animate by having us pulse the alpha of
+     * a hardware layer they're drawn into, using a property animation of the layer
+     * instead of redrawing the display on every frame. The display is only drawn again
+     * when it changes (like when the recycler is resized, or it calls
+     * {@link #invalidateStateDisplay()}). Only the display is faded, not the recycler or
+     * its items. Needs API 18; on older versions the display is drawn without animating.
+     */
+    public interface LayerAnimatedStateDisplay extends StateDisplay {
+        /**
+         * Checks if the display currently wants the layer animation.
+         * @return True if layer animating
+         */
+        boolean isLayerAnimating();
+
+        /**
+         * Sets up the alpha property animator; set its values, duration, and repeat
+         * properties here. The display is fully opaque at an alpha of 1, no matter
+         * what the alpha of the recycler is.
+         *
+         * @param anim {@link ObjectAnimator} animating {@link View#ALPHA} of the layer, from 0 to 1
+         */
+        void onSetupLayerAnimator(@NonNull ObjectAnimator anim);
+    }
+
+    /**
+     * Defines methods for state displays that hold on to resources (like shared
+     * bitmaps) that should be let go when we stop showing them.
+     */
+    public interface ReleasableStateDisplay extends StateDisplay {
+        /**
+         * Called when the display is removed, or we're detached from the window. The
+         * display may still be drawn again afterwards, so it should be able to get
+         * its resources back when needed.
+         *
+         * @param rv {@link EmptyStateRecyclerView} that showed the display
+         */
+        void onReleaseState(EmptyStateRecyclerView rv);
+    }
+
+    /**
+     * Callbacks for state changes, always called on the main thread.
      */
     public interface OnStateChangedListener {
         void onStateChanged(byte state);
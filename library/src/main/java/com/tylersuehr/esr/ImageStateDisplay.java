@@ -1,7 +1,9 @@
 package com.tylersuehr.esr;
 import android.content.Context;
+import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.RectF;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
@@ -22,13 +24,18 @@ import android.view.Gravity;
  * (2) Stretch or crop the image using scale type
  * (3) Align the image using gravity
  * (4) Set margins to adjust image alignment
+ * (5) Scale the image when drawn, instead of keeping a scaled copy of it
+ *
+ * Drawables that aren't bitmaps (like vectors and shapes) are always drawn directly,
+ * at the size the scale type gives them, so they stay sharp and cost no bitmap memory.
  *
  * @see Builder to easily instantiate this
  *
  * @author Tyler Suehr
  * @version 1.0
  */
-public class ImageStateDisplay extends AbstractStateDisplay {
+public class ImageStateDisplay extends AbstractStateDisplay
+        implements EmptyStateRecyclerView.ReleasableStateDisplay {
     /* Constants for image scale type */
     public static final byte NONE           = 0; // No scaling will be applied
     public static final byte FIT_XY         = 1; // Stretch to fit screen dimensions
@@ -39,20 +46,50 @@ public class ImageStateDisplay extends AbstractStateDisplay {
     public static final byte CROP_XY        = 6; // Cropped to fit larges screen dimension
 
     private boolean imageConfigured = false;
+    /* Stores the size of the screen the image was configured for */
+    private int configuredWidth;
+    private int configuredHeight;
+    /* Incremented whenever the image is invalidated */
+    private int imageGeneration;
+    /* True if the image resource should be decoded in the background, instead of when drawn */
+    private boolean prepareAsync = false;
+    private boolean preparing = false;
 
     /* Stores the scale type to apply to the image */
     private byte scaleType = NONE;
     /* Stores the gravity for the image */
     private int imageGravity;
-    /* Stores a reference to the image */
+    /* Stores a reference to the image, as drawn */
     private Bitmap image;
+    /* Stores the key of the drawn image in the shared cache */
+    private BitmapCache.Key imageKey;
+    /* Stores a reference to the image, as set */
+    private Bitmap sourceImage;
+    /* Stores the image as set, when it's a drawable that isn't a bitmap */
+    private Drawable drawable;
+    private int drawableWidth;
+    private int drawableHeight;
+    /* Stores the image resource, decoded only at the size it will be drawn */
+    private Resources imageResources;
+    private int imageRes;
+    /* True if the image should be scaled when drawn, instead of keeping a scaled copy */
+    private boolean scaleOnDraw = false;
+    /* Stores the size of the drawn area, and where the image goes in it */
+    private final RectF imageBounds = new RectF();
+    private int drawnWidth;
+    private int drawnHeight;
+    /* Stores the bitmap config for the image, or null to use the profile's */
+    private Bitmap.Config bitmapConfig;
+    /* Paint used to filter the image when scaled while drawn */
+    private final Paint imagePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
 
 
     @Override
     public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {
         final int width = rv.getMeasuredWidth();
         final int height = rv.getMeasuredHeight();
-        configureImage(width, height);
+        configureImage(rv, width, height);
+        if (image == null && drawable == null) { return; } // Nothing set, or still being prepared
 
         final int horizontalGravity = Gravity.getAbsoluteGravity(imageGravity,
                 ViewCompat.getLayoutDirection(rv))&Gravity.HORIZONTAL_GRAVITY_MASK;
@@ -62,10 +99,10 @@ public class ImageStateDisplay extends AbstractStateDisplay {
         float dx;
         switch (horizontalGravity) {
             case Gravity.CENTER_HORIZONTAL:
-                dx = (width >> 1) - (image.getWidth() >> 1);
+                dx = (width >> 1) - (drawnWidth >> 1);
                 break;
             case GravityCompat.END:
-                dx = width - image.getWidth();
+                dx = width - drawnWidth;
                 break;
             default:
             case GravityCompat.START:
@@ -77,10 +114,10 @@ public class ImageStateDisplay extends AbstractStateDisplay {
         float dy;
         switch (verticalGravity) {
             case Gravity.CENTER_VERTICAL:
-                dy = (height >> 1) - (image.getHeight() >> 1);
+                dy = (height >> 1) - (drawnHeight >> 1);
                 break;
             case Gravity.BOTTOM:
-                dy = height - image.getHeight();
+                dy = height - drawnHeight;
                 break;
             default:
             case Gravity.TOP:
@@ -95,7 +132,23 @@ public class ImageStateDisplay extends AbstractStateDisplay {
         dy -= getPaddingBottom(); // Bottom margin
 
         // Draw bitmap using locations based on gravity
-        canvas.drawBitmap(image, dx, dy, null);
+        if (drawable != null) {
+            // Draw the drawable directly, already bounded to its scaled size
+            canvas.save();
+            canvas.translate(dx, dy);
+            canvas.clipRect(0, 0, drawnWidth, drawnHeight);
+            this.drawable.draw(canvas);
+            canvas.restore();
+        } else if (image.getWidth() == drawnWidth && image.getHeight() == drawnHeight) {
+            canvas.drawBitmap(image, dx, dy, null);
+        } else {
+            // Scale (and crop) the source image while drawing
+            canvas.save();
+            canvas.translate(dx, dy);
+            canvas.clipRect(0, 0, drawnWidth, drawnHeight);
+            canvas.drawBitmap(image, null, imageBounds, imagePaint);
+            canvas.restore();
+        }
     }
 
     public void setScaleType(byte scaleType) {
@@ -103,51 +156,138 @@ public class ImageStateDisplay extends AbstractStateDisplay {
         invalidateImage();
     }
 
+    /**
+     * Sets whether the image is scaled when drawn, instead of keeping a scaled copy
+     * of it. Only the source image is kept in memory, which saves a whole screen-sized
+     * bitmap for images that fill the screen, at the cost of scaling on every draw.
+     *
+     * @param scaleOnDraw True to scale the image when drawn
+     */
+    public void setScaleOnDraw(boolean scaleOnDraw) {
+        this.scaleOnDraw = scaleOnDraw;
+        invalidateImage();
+    }
+
+    /**
+     * Sets the bitmap config used for the image, like {@link Bitmap.Config#RGB_565} to
+     * halve the memory of opaque images (images with alpha keep it).
+     *
+     * @param config {@link Bitmap.Config}, or null to use {@link DisplayProfile#getBitmapConfig()}
+     */
+    public void setBitmapConfig(Bitmap.Config config) {
+        this.bitmapConfig = config;
+        invalidateImage();
+    }
+
+    /**
+     * Sets whether the image resource is decoded on a background thread, instead of
+     * in the draw pass. The scale type is still applied on the main thread; until the
+     * image is ready, the previous image (or nothing) is drawn.
+     *
+     * @param prepareAsync True to decode in the background
+     */
+    public void setPrepareAsync(boolean prepareAsync) {
+        this.prepareAsync = prepareAsync;
+    }
+
     public void setImageGravity(int gravity) {
         this.imageGravity = gravity;
-        // No need for invalidation
+        notifyConfigChanged(); // No need to configure the image again
+    }
+
+    @Override
+    public void onReleaseState(EmptyStateRecyclerView rv) {
+        releaseImage();
+        invalidateImage();
     }
 
     public void setImage(Bitmap bitmap) {
-        this.image = bitmap;
+        this.sourceImage = bitmap;
+        this.drawable = null;
+        this.imageResources = null;
         invalidateImage();
     }
 
     public void setImage(Drawable drawable) {
-        this.image = ImageUtils.drawableToBitmap(drawable);
+        if (drawable instanceof BitmapDrawable && ((BitmapDrawable)drawable).getBitmap() != null) {
+            setImage(((BitmapDrawable)drawable).getBitmap());
+            return;
+        }
+        this.drawable = drawable;
+        this.drawableWidth = drawable.getIntrinsicWidth();
+        this.drawableHeight = drawable.getIntrinsicHeight();
+        this.sourceImage = null;
+        this.imageResources = null;
         invalidateImage();
     }
 
+    /**
+     * Sets the image from a drawable resource. Bitmap resources aren't decoded until
+     * the size they will be drawn at is known, and are then decoded no bigger than
+     * needed; other drawables (like vectors) are drawn directly.
+     *
+     * @param c {@link Context}
+     * @param res Drawable resource
+     */
     public void setImage(Context c, @DrawableRes int res) {
-        setImage(ContextCompat.getDrawable(c, res));
+        if (ImageUtils.isXmlDrawable(c.getResources(), res)) {
+            setImage(ContextCompat.getDrawable(c, res));
+            return;
+        }
+        this.sourceImage = null;
+        this.drawable = null;
+        this.imageResources = c.getResources();
+        this.imageRes = res;
+        invalidateImage();
     }
 
     public void resizeImage(int width, int height) {
-        if (image == null) {
+        if (drawable != null) {
+            // Drawables can be drawn at any size, so there's no need for a bitmap
+            this.drawableWidth = width;
+            this.drawableHeight = height;
+            invalidateImage();
+            return;
+        }
+        if (sourceImage == null && imageResources != null) {
+            this.sourceImage = ImageUtils.decodeBitmap(imageResources, imageRes, width, height, getBitmapConfig());
+            this.imageResources = null;
+        }
+        if (sourceImage == null) {
             throw new NullPointerException("Please set an image before calling resizeImage()!");
         }
-        this.image = Bitmap.createScaledBitmap(image, width, height, false);
+        this.sourceImage = Bitmap.createScaledBitmap(sourceImage, width, height, false);
         invalidateImage();
     }
 
     protected void stretchImage(final int screenWidth, final int screenHeight) {
         switch (scaleType) {
             case FIT_XY:
-                this.image = Bitmap.createScaledBitmap(image, screenWidth, screenHeight, true);
+                this.image = ImageUtils.drawScaled(image, screenWidth, screenHeight, null, true, getBitmapConfig());
                 break;
             case FIT_WIDTH:
-                this.image = Bitmap.createScaledBitmap(image, screenWidth, image.getHeight(), true);
+                this.image = ImageUtils.drawScaled(image, screenWidth, image.getHeight(), null, true, getBitmapConfig());
                 break;
             case FIT_HEIGHT:
-                this.image = Bitmap.createScaledBitmap(image, image.getWidth(), screenHeight, true);
+                this.image = ImageUtils.drawScaled(image, image.getWidth(), screenHeight, null, true, getBitmapConfig());
                 break;
         }
     }
 
     protected void cropImage(final int screenWidth, final int screenHeight) {
-        final int sourceWidth = image.getWidth();
-        final int sourceHeight = image.getHeight();
+        RectF targetRect = new RectF();
+        getCropBounds(image.getWidth(), image.getHeight(), screenWidth, screenHeight, targetRect);
 
+        // Finally, we get a (pooled) bitmap of the specified size and draw our new,
+        // scaled bitmap onto it.
+        this.image = ImageUtils.drawScaled(image, screenWidth, screenHeight, targetRect, false, getBitmapConfig());
+    }
+
+    /**
+     * Computes where the scaled source goes when cropped to the given screen size.
+     */
+    private void getCropBounds(final int sourceWidth, final int sourceHeight,
+                               final int screenWidth, final int screenHeight, RectF outBounds) {
         // Compute the scaling factors to fit the new height and width, respectively.
         final float xScale = (float)screenWidth / sourceWidth;
         final float yScale = (float)screenHeight / sourceHeight;
@@ -175,36 +315,300 @@ public class ImageStateDisplay extends AbstractStateDisplay {
 
         // The target rectangle for the new, scaled version of the source
         // bitmap will now be
-        RectF targetRect = new RectF(left, top, left + scaledWidth, top + scaledHeight);
+        outBounds.set(left, top, left + scaledWidth, top + scaledHeight);
+    }
 
-        // Finally, we create a new bitmap of the specified size and draw our new,
-        // scaled bitmap onto it.
-        Bitmap dest = Bitmap.createBitmap(screenWidth, screenHeight, image.getConfig());
-        Canvas canvas = new Canvas(dest);
-        canvas.drawBitmap(image, null, targetRect, null);
-        this.image = dest;
+    /**
+     * Computes the size of the drawn area, and where the source goes in it, for the
+     * scale type; used when scaling while drawing.
+     */
+    private void computeImageBounds(final int sourceWidth, final int sourceHeight,
+                                    final int screenWidth, final int screenHeight) {
+        switch (scaleType) {
+            case FIT_XY:
+                this.drawnWidth = screenWidth;
+                this.drawnHeight = screenHeight;
+                break;
+            case FIT_WIDTH:
+                this.drawnWidth = screenWidth;
+                this.drawnHeight = sourceHeight;
+                break;
+            case FIT_HEIGHT:
+                this.drawnWidth = sourceWidth;
+                this.drawnHeight = screenHeight;
+                break;
+            case CROP_XY:
+            case CROP_TO_WIDTH:
+            case CROP_TO_HEIGHT:
+                this.drawnWidth = screenWidth;
+                this.drawnHeight = screenHeight;
+                getCropBounds(sourceWidth, sourceHeight, screenWidth, screenHeight, imageBounds);
+                return;
+            default:
+                this.drawnWidth = sourceWidth;
+                this.drawnHeight = sourceHeight;
+                break;
+        }
+        this.imageBounds.set(0, 0, drawnWidth, drawnHeight);
     }
 
     private void invalidateImage() {
         this.imageConfigured = false;
+        this.imageGeneration++;
+        notifyConfigChanged();
+    }
+
+    private void configureImage(final EmptyStateRecyclerView rv, final int width, final int height) {
+        if (!imageConfigured || configuredWidth != width || configuredHeight != height) {
+            if (drawable != null) {
+                configureDrawable(width, height);
+                setImageConfigured(width, height);
+                return;
+            }
+            if (imageResources == null && sourceImage == null) { return; }
+            if (!prepareAsync || imageResources == null || acquireImage(getImageKey(width, height))) {
+                configureImage(width, height, null);
+            } else if (!preparing) {
+                prepareImage(rv, width, height);
+            }
+        }
+    }
+
+    /**
+     * Applies the scale type to the image, using the given decoded image resource,
+     * or decoding it if null.
+     */
+    private void configureImage(final int width, final int height, final Bitmap decoded) {
+        if (scaleOnDraw || scaleType == NONE) {
+            configureSourceImage(width, height, decoded);
+            computeImageBounds(image.getWidth(), image.getHeight(), width, height);
+        } else {
+            configureScaledImage(width, height, decoded);
+            this.drawnWidth = image.getWidth();
+            this.drawnHeight = image.getHeight();
+            this.imageBounds.set(0, 0, drawnWidth, drawnHeight);
+        }
+        setImageConfigured(width, height);
+    }
+
+    private void setImageConfigured(final int width, final int height) {
+        this.imageConfigured = true;
+        this.configuredWidth = width;
+        this.configuredHeight = height;
+    }
+
+    /**
+     * Decodes the image resource in the background, then applies the scale type to it
+     * on the main thread; the stretch and crop hooks are never called in the background.
+     */
+    private void prepareImage(final EmptyStateRecyclerView rv, final int width, final int height) {
+        this.preparing = true;
+        final int generation = imageGeneration;
+        final Resources imageResources = this.imageResources;
+        final int imageRes = this.imageRes;
+        final int[] decodeSize = getDecodeSize(width, height);
+        final Bitmap.Config config = getBitmapConfig();
+
+        StatePreparer.prepare(rv, new StatePreparer.Task() {
+            private Bitmap decoded;
+
+            @Override
+            void onPrepare() {
+                this.decoded = ImageUtils.decodeBitmap(imageResources, imageRes, decodeSize[0], decodeSize[1], config);
+            }
+
+            @Override
+            void onPublish() {
+                preparing = false;
+                if (isFailed()) {
+                    // Decode on the main thread from now on
+                    prepareAsync = false;
+                    return;
+                }
+                if (generation != imageGeneration) {
+                    // Stale (like the image changed, or the display was released meanwhile)
+                    if (decoded != null) {
+                        BitmapPool.getInstance().put(decoded);
+                    }
+                    return;
+                }
+                configureImage(width, height, decoded);
+                notifyConfigChanged();
+            }
+        });
+    }
+
+    /**
+     * Bounds the drawable to the size the scale type gives it; drawables without an
+     * intrinsic size fill the screen.
+     */
+    private void configureDrawable(final int width, final int height) {
+        releaseImage();
+        computeImageBounds(
+                (drawableWidth > 0) ? drawableWidth : width,
+                (drawableHeight > 0) ? drawableHeight : height,
+                width, height);
+        this.drawable.setBounds(
+                Math.round(imageBounds.left),
+                Math.round(imageBounds.top),
+                Math.round(imageBounds.right),
+                Math.round(imageBounds.bottom));
+    }
+
+    /**
+     * Gets the unscaled source image; resources are decoded (and shared) at the
+     * smallest size that can still be scaled without upscaling.
+     */
+    private void configureSourceImage(final int width, final int height, final Bitmap decoded) {
+        if (imageResources == null) {
+            // Nothing is done to the image, so there's nothing to share
+            releaseImage();
+            this.image = sourceImage;
+            return;
+        }
+
+        final BitmapCache.Key key = getImageKey(width, height);
+        if (acquireImage(key)) {
+            // Another display decoded it meanwhile
+            if (decoded != null) {
+                BitmapPool.getInstance().put(decoded);
+            }
+            return;
+        }
+        putImage(key, (decoded != null) ? decoded : decodeImage(width, height));
     }
 
-    private void configureImage(final int width, final int height) {
-        if (!imageConfigured) {
-            switch (scaleType) {
-                case FIT_XY:
-                case FIT_WIDTH:
-                case FIT_HEIGHT:
-                    stretchImage(width, height);
-                    break;
-                case CROP_XY:
-                case CROP_TO_WIDTH:
-                case CROP_TO_HEIGHT:
-                    cropImage(width, height);
-                    break;
+    /**
+     * Gets a copy of the image with the scale type applied, shared with any other
+     * display showing the same image at the same size.
+     */
+    private void configureScaledImage(final int width, final int height, final Bitmap decoded) {
+        final BitmapCache.Key key = getImageKey(width, height);
+        if (acquireImage(key)) {
+            // Another display scaled it meanwhile
+            if (decoded != null) {
+                BitmapPool.getInstance().put(decoded);
             }
-            imageConfigured = true;
+            return;
+        }
+
+        final Bitmap unscaled;
+        if (imageResources != null) {
+            unscaled = (decoded != null) ? decoded : decodeImage(width, height);
+        } else {
+            unscaled = sourceImage;
+        }
+        this.image = unscaled;
+        switch (scaleType) {
+            case FIT_XY:
+            case FIT_WIDTH:
+            case FIT_HEIGHT:
+                stretchImage(width, height);
+                break;
+            case CROP_XY:
+            case CROP_TO_WIDTH:
+            case CROP_TO_HEIGHT:
+                cropImage(width, height);
+                break;
+        }
+
+        // Only a bitmap we decoded or drew into is ours to pool later
+        if (unscaled != image && unscaled != sourceImage) {
+            BitmapPool.getInstance().put(unscaled);
+        }
+        putImage(key, image);
+    }
+
+    /**
+     * Gets the key of the image in the shared cache: the decoded resource when the scale
+     * type is applied while drawing, otherwise the image with the scale type applied.
+     */
+    private BitmapCache.Key getImageKey(final int width, final int height) {
+        if (scaleOnDraw || scaleType == NONE) {
+            final int[] decodeSize = getDecodeSize(width, height);
+            // Only decoded, which subclasses can't change
+            return new BitmapCache.Key(ImageStateDisplay.class,
+                    ImageUtils.getResourceKey(imageResources, imageRes),
+                    decodeSize[0], decodeSize[1], NONE, getBitmapConfig());
+        }
+        // Only keep the dimensions that affect the image in the key; subclasses may scale
+        // the image their own way, so only share it with displays of the same class
+        return new BitmapCache.Key(getClass(),
+                (imageResources != null) ? ImageUtils.getResourceKey(imageResources, imageRes) : sourceImage,
+                (scaleType == FIT_HEIGHT) ? 0 : width,
+                (scaleType == FIT_WIDTH) ? 0 : height,
+                scaleType,
+                getBitmapConfig());
+    }
+
+    private Bitmap decodeImage(final int width, final int height) {
+        final int[] decodeSize = getDecodeSize(width, height);
+        return ImageUtils.decodeBitmap(imageResources, imageRes, decodeSize[0], decodeSize[1], getBitmapConfig());
+    }
+
+    /**
+     * Uses the cached image for the given key, if there is one.
+     * @return True if the image was cached
+     */
+    private boolean acquireImage(BitmapCache.Key key) {
+        if (key.equals(imageKey)) { return true; }
+        final Bitmap cached = BitmapCache.getInstance().acquire(key);
+        if (cached == null) { return false; }
+        releaseImage();
+        this.image = cached;
+        this.imageKey = key;
+        return true;
+    }
+
+    /**
+     * Caches the given image for the given key, and uses it.
+     */
+    private void putImage(BitmapCache.Key key, Bitmap bitmap) {
+        final Bitmap cached = BitmapCache.getInstance().put(key, bitmap, bitmap != sourceImage);
+        releaseImage();
+        this.image = cached;
+        this.imageKey = key;
+    }
+
+    private Bitmap.Config getBitmapConfig() {
+        return (bitmapConfig != null) ? bitmapConfig : DisplayProfile.getBitmapConfig();
+    }
+
+    private void releaseImage() {
+        if (imageKey != null) {
+            BitmapCache.getInstance().release(imageKey);
+            this.imageKey = null;
+        }
+        this.image = null;
+    }
+
+    /**
+     * Gets the smallest size the image resource can be decoded at, so the scale type
+     * can still be applied without upscaling.
+     */
+    private int[] getDecodeSize(final int width, final int height) {
+        final int reqWidth;
+        final int reqHeight;
+        switch (scaleType) {
+            case FIT_XY:
+            case CROP_XY:
+                reqWidth = width;
+                reqHeight = height;
+                break;
+            case CROP_TO_WIDTH:
+                reqWidth = width;
+                reqHeight = 0;
+                break;
+            case CROP_TO_HEIGHT:
+                reqWidth = 0;
+                reqHeight = height;
+                break;
+            default: // Other scale types keep at least one of the image's own dimensions
+                reqWidth = 0;
+                reqHeight = 0;
+                break;
         }
+        return new int[] { reqWidth, reqHeight };
     }
 
 
@@ -217,6 +621,13 @@ public class ImageStateDisplay extends AbstractStateDisplay {
         private byte scaleType;
         private int gravity;
         private Bitmap image;
+        private Drawable drawable;
+        private int drawableWidth;
+        private int drawableHeight;
+        private int imageRes;
+        private boolean scaleOnDraw;
+        private Bitmap.Config bitmapConfig;
+        private boolean prepareAsync;
 
 
         public Builder(Context c) {
@@ -224,28 +635,55 @@ public class ImageStateDisplay extends AbstractStateDisplay {
         }
 
         public Builder setImage(@DrawableRes int res) {
-            return setImage(ContextCompat.getDrawable(c, res));
+            this.image = null;
+            this.drawable = null;
+            this.imageRes = res;
+            return this;
         }
 
         public Builder setImage(Drawable dr) {
-            this.image = ImageUtils.drawableToBitmap(dr);
+            if (dr instanceof BitmapDrawable && ((BitmapDrawable)dr).getBitmap() != null) {
+                return setImage(((BitmapDrawable)dr).getBitmap());
+            }
+            this.image = null;
+            this.drawable = dr;
+            this.drawableWidth = 0;
+            this.drawableHeight = 0;
+            this.imageRes = 0;
             return this;
         }
 
         public Builder setImage(Bitmap bp) {
             this.image = bp;
+            this.drawable = null;
+            this.imageRes = 0;
             return this;
         }
 
         public Builder resizeImage(int widthDp, int heightDp) {
-            if (image == null) {
-                throw new NullPointerException("Please set image before calling resizeImage()!");
-            }
-
             final float density = c.getResources().getDisplayMetrics().density;
             final int desiredWidth = (int)(widthDp * density);
             final int desiredHeight = (int)(heightDp * density);
 
+            if (imageRes != 0) {
+                if (ImageUtils.isXmlDrawable(c.getResources(), imageRes)) {
+                    setImage(ContextCompat.getDrawable(c, imageRes));
+                } else {
+                    this.image = ImageUtils.decodeBitmap(c.getResources(), imageRes, desiredWidth, desiredHeight,
+                            (bitmapConfig != null) ? bitmapConfig : DisplayProfile.getBitmapConfig());
+                }
+                this.imageRes = 0;
+            }
+            if (drawable != null) {
+                // Drawables can be drawn at any size, so there's no need for a bitmap
+                this.drawableWidth = desiredWidth;
+                this.drawableHeight = desiredHeight;
+                return this;
+            }
+            if (image == null) {
+                throw new NullPointerException("Please set image before calling resizeImage()!");
+            }
+
             this.image = Bitmap.createScaledBitmap(image, desiredWidth, desiredHeight, false);
             return this;
         }
@@ -260,6 +698,21 @@ public class ImageStateDisplay extends AbstractStateDisplay {
             return this;
         }
 
+        public Builder setScaleOnDraw(boolean scaleOnDraw) {
+            this.scaleOnDraw = scaleOnDraw;
+            return this;
+        }
+
+        public Builder setBitmapConfig(Bitmap.Config config) {
+            this.bitmapConfig = config;
+            return this;
+        }
+
+        public Builder setPrepareAsync(boolean prepareAsync) {
+            this.prepareAsync = prepareAsync;
+            return this;
+        }
+
         public Builder setPadding(int leftDp, int topDp, int rightDp, int bottomDp) {
             final float density = c.getResources().getDisplayMetrics().density;
             this.padding[0] = (int)(leftDp * density);
@@ -270,7 +723,7 @@ public class ImageStateDisplay extends AbstractStateDisplay {
         }
 
         public ImageStateDisplay build() {
-            if (image == null) {
+            if (image == null && drawable == null && imageRes == 0) {
                 throw new NullPointerException("Image cannot be null!");
             }
 
@@ -278,7 +731,19 @@ public class ImageStateDisplay extends AbstractStateDisplay {
             state.setPadding(padding[0], padding[1], padding[2], padding[3]);
             state.scaleType = scaleType;
             state.imageGravity = gravity;
-            state.image = image;
+            state.scaleOnDraw = scaleOnDraw;
+            state.bitmapConfig = bitmapConfig;
+            state.prepareAsync = prepareAsync;
+            if (image != null) {
+                state.sourceImage = image;
+            } else if (drawable != null) {
+                state.setImage(drawable);
+                if (drawableWidth > 0) {
+                    state.resizeImage(drawableWidth, drawableHeight);
+                }
+            } else {
+                state.setImage(c, imageRes);
+            }
             return state;
         }
     }
@@ -1,20 +1,22 @@
 package com.tylersuehr.esr;
 import android.content.Context;
+import android.content.res.Resources;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Typeface;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.support.annotation.ColorInt;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.content.ContextCompat;
-import android.text.Layout;
 import android.text.StaticLayout;
 import android.text.TextPaint;
 import android.util.DisplayMetrics;
+import android.util.LruCache;
 
 /**
  * Copyright © 2017 Tyler Suehr
@@ -22,23 +24,53 @@ import android.util.DisplayMetrics;
  * @author Tyler Suehr
  * @version 1.0
  */
-public class ImageTextStateDisplay extends AbstractStateDisplay {
+public class ImageTextStateDisplay extends AbstractStateDisplay
+        implements EmptyStateRecyclerView.ReleasableStateDisplay {
+    /* Max amount of scaled images kept (e.g. one per orientation) */
+    private static final int MAX_SCALED_IMAGES = 3;
+
     private final int sixteenDp;
 
     private boolean configured = false;
+    private int configuredWidth;
+    /* Incremented whenever the config is invalidated */
+    private int configGeneration;
+    /* True if the text and image should be prepared in the background, instead of when drawn */
+    private boolean prepareAsync = false;
+    private boolean preparing = false;
 
     /* Properties for the title text */
     private final TextPaint titlePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
     private StaticLayout titleLayout;
+    private final TextLayoutCache titleLayouts = new TextLayoutCache();
     private String title;
 
     /* Properties for the subtitle text */
     private final TextPaint subtitlePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
     private StaticLayout subtitleLayout;
+    private final TextLayoutCache subtitleLayouts = new TextLayoutCache();
     private String subtitle;
+    /* Incremented whenever the paints change, so layouts with old paints aren't reused */
+    private int paintVersion;
 
     /* Properties for the image */
     private Bitmap image;
+    private Bitmap sourceImage;
+    private int imageSize;
+    /* Image as set, when it's a drawable that isn't a bitmap (drawn directly at any size) */
+    private Drawable drawable;
+    /* Recently used scaled variants of the image, each holding a reference in the shared cache */
+    private final LruCache<BitmapCache.Key, Bitmap> scaledImages = new LruCache<BitmapCache.Key, Bitmap>(MAX_SCALED_IMAGES) {
+        @Override
+        protected void entryRemoved(boolean evicted, BitmapCache.Key key, Bitmap oldValue, Bitmap newValue) {
+            BitmapCache.getInstance().release(key);
+        }
+    };
+    /* Bitmap config for the image, or null to use the profile's */
+    private Bitmap.Config bitmapConfig;
+    /* Image resource, decoded only at the size it will be drawn */
+    private Resources imageResources;
+    private int imageRes;
     /* Space between the title and subtitle texts */
     private int titleSpacing;
     /* Space between the text and image */
@@ -52,12 +84,14 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
     }
 
     public ImageTextStateDisplay(Context c, @DrawableRes int res, @NonNull String title, @Nullable String subtitle) {
-        this(c, ImageUtils.drawableToBitmap(
-                ContextCompat.getDrawable(c, res)), title, subtitle);
-
+        this(c, null, res, title, subtitle);
     }
 
     public ImageTextStateDisplay(Context c, @NonNull Bitmap bitmap, @NonNull String title, @Nullable String subtitle) {
+        this(c, bitmap, 0, title, subtitle);
+    }
+
+    private ImageTextStateDisplay(Context c, Bitmap bitmap, @DrawableRes int res, String title, String subtitle) {
         DisplayMetrics dm = c.getResources().getDisplayMetrics();
         this.sixteenDp = (int)(16f * dm.density);
 
@@ -72,27 +106,17 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
         this.titlePaint.setColor(Color.BLACK);
         this.title = title;
 
-        // Default to a single line of text
-        this.titleLayout = new StaticLayout(title,
-                titlePaint,
-                (int)titlePaint.measureText(title),
-                Layout.Alignment.ALIGN_NORMAL,
-                1.0f, 0, false);
-
         // Setup subtitle defaults
         this.subtitlePaint.setTextSize(14f * dm.scaledDensity);
         this.subtitlePaint.setTextAlign(Paint.Align.CENTER);
         this.subtitlePaint.setColor(Color.GRAY);
         this.subtitle = (subtitle == null ? "Dank yo hommie future is a rapper sdlkfjsldjfslkdjfsldjfasdjfasljdfasjdflasjdflsajd" : subtitle);
+        // Text is laid out and the image is scaled when first drawn, once the width is known
 
-        // Default to a single line of text
-        this.subtitleLayout = new StaticLayout(this.subtitle,
-                subtitlePaint,
-                (int)subtitlePaint.measureText(this.subtitle),
-                Layout.Alignment.ALIGN_NORMAL,
-                1.0f, 0, false);
-
-        this.image = bitmap;
+        this.sourceImage = bitmap;
+        if (bitmap == null) {
+            loadImage(c, res);
+        }
     }
 
     @Override
@@ -104,6 +128,13 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
         }
     }
 
+    @Override
+    public void onReleaseState(EmptyStateRecyclerView rv) {
+        this.scaledImages.evictAll();
+        this.image = null;
+        invalidateConfig();
+    }
+
     @Override
     public void setPadding(int left, int top, int right, int bottom) {
         super.setPadding(left, top, right, bottom);
@@ -116,7 +147,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitleSpacing(int spacing) {
         this.titleSpacing = spacing;
-        // No invalidation needed
+        notifyConfigChanged(); // No need to configure again
     }
 
     /**
@@ -125,7 +156,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitleTextColor(@ColorInt int color) {
         this.titlePaint.setColor(color);
-        invalidateConfig();
+        invalidatePaint();
     }
 
     /**
@@ -134,7 +165,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitleTextSize(float textSize) {
         this.titlePaint.setTextSize(textSize);
-        invalidateConfig();
+        invalidatePaint();
     }
 
     /**
@@ -143,7 +174,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitleTextAlign(Paint.Align align) {
         this.titlePaint.setTextAlign(align);
-        invalidateConfig();
+        invalidatePaint();
     }
 
     /**
@@ -152,6 +183,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitle(String title) {
         this.title = title;
+        this.titleLayouts.clear();
         invalidateConfig();
     }
 
@@ -161,7 +193,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setSubtitleTextColor(@ColorInt int color) {
         this.subtitlePaint.setColor(color);
-        invalidateConfig();
+        invalidatePaint();
     }
 
     /**
@@ -170,7 +202,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setSubtitleTextSize(float textSize) {
         this.subtitlePaint.setTextSize(textSize);
-        invalidateConfig();
+        invalidatePaint();
     }
 
     /**
@@ -179,7 +211,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setSubtitleTextAlign(Paint.Align align) {
         this.subtitlePaint.setTextAlign(align);
-        invalidateConfig();
+        invalidatePaint();
     }
 
     /**
@@ -188,6 +220,7 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
      */
     public void setSubtitle(String subtitle) {
         this.subtitle = subtitle;
+        this.subtitleLayouts.clear();
         invalidateConfig();
     }
 
@@ -198,17 +231,43 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
     public void setTypeface(Typeface typeface) {
         this.titlePaint.setTypeface(typeface);
         this.subtitlePaint.setTypeface(typeface);
-        invalidateConfig();
+        invalidatePaint();
     }
 
     public void setImage(Bitmap bitmap) {
-        this.image = bitmap;
+        this.sourceImage = bitmap;
+        this.drawable = null;
+        this.imageResources = null;
+        this.scaledImages.evictAll();
+        invalidateConfig();
+    }
+
+    public void setImage(Drawable drawable) {
+        if (drawable instanceof BitmapDrawable && ((BitmapDrawable)drawable).getBitmap() != null) {
+            setImage(((BitmapDrawable)drawable).getBitmap());
+            return;
+        }
+        this.drawable = drawable;
+        this.sourceImage = null;
+        this.imageResources = null;
+        this.scaledImages.evictAll();
         invalidateConfig();
     }
 
     public void setImage(Context c, @DrawableRes int res) {
-        this.image = ImageUtils.drawableToBitmap(
-                ContextCompat.getDrawable(c, res));
+        this.scaledImages.evictAll();
+        loadImage(c, res);
+        invalidateConfig();
+    }
+
+    /**
+     * Sets the bitmap config used for the image, like {@link Bitmap.Config#RGB_565} to
+     * halve the memory of opaque images (images with alpha keep it).
+     *
+     * @param config {@link Bitmap.Config}, or null to use {@link DisplayProfile#getBitmapConfig()}
+     */
+    public void setBitmapConfig(Bitmap.Config config) {
+        this.bitmapConfig = config;
         invalidateConfig();
     }
 
@@ -219,20 +278,30 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
 
     public void setDrawTextFirst(boolean value) {
         this.drawTextFirst = value;
+        notifyConfigChanged();
+    }
+
+    /**
+     * Sets whether the text is laid out, and the image decoded and scaled, on a background
+     * thread instead of in the draw pass. Until they're ready, the previous text and image
+     * (or nothing) are drawn.
+     *
+     * @param prepareAsync True to prepare in the background
+     */
+    public void setPrepareAsync(boolean prepareAsync) {
+        this.prepareAsync = prepareAsync;
     }
 
     private void drawImageFirst(EmptyStateRecyclerView rv, Canvas canvas) {
         final int width = rv.getMeasuredWidth();
         final int height = rv.getMeasuredHeight();
-        configure(width);
+        configure(rv, width);
+        if (titleLayout == null) { return; } // Still being prepared
 
-        float dy = (height >> 1) - ((image.getHeight() + sixteenDp + (int)getFullTextHeight()) >> 1);
-        canvas.drawBitmap(image,
-                (width >> 1) - ((image.getWidth() >> 1)),
-                dy,
-                null);
+        float dy = (height >> 1) - ((imageSize + sixteenDp + (int)getFullTextHeight()) >> 1);
+        drawImage(canvas, (width >> 1) - (imageSize >> 1), dy);
 
-        dy += image.getHeight() + textImageSpacing;
+        dy += imageSize + textImageSpacing;
 
         // Draw the title text
         canvas.save();
@@ -257,9 +326,10 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
     private void drawTextFirst(EmptyStateRecyclerView rv, Canvas canvas) {
         final int width = rv.getMeasuredWidth();
         final int height = rv.getMeasuredHeight();
-        configure(width);
+        configure(rv, width);
+        if (titleLayout == null) { return; } // Still being prepared
 
-        float dy = (height >> 1) - ((image.getHeight() + sixteenDp + (int)getFullTextHeight()) >> 1);
+        float dy = (height >> 1) - ((imageSize + sixteenDp + (int)getFullTextHeight()) >> 1);
 
         // Draw the title text
         canvas.save();
@@ -282,14 +352,54 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
 
         dy += subtitleLayout.getHeight() + textImageSpacing;
 
-        canvas.drawBitmap(image,
-                (width >> 1) - ((image.getWidth() >> 1)),
-                dy,
-                null);
+        drawImage(canvas, (width >> 1) - (imageSize >> 1), dy);
+    }
+
+    private void drawImage(Canvas canvas, float left, float top) {
+        if (drawable != null) {
+            // Drawn directly, already bounded to the image size
+            canvas.save();
+            canvas.translate(left, top);
+            this.drawable.draw(canvas);
+            canvas.restore();
+        } else if (image != null) {
+            canvas.drawBitmap(image, left, top, null);
+        }
+    }
+
+    /**
+     * Loads the image from a drawable resource. Bitmap resources aren't decoded until
+     * the size they will be drawn at is known; other drawables (like vectors) are kept
+     * to be drawn directly.
+     */
+    private void loadImage(Context c, @DrawableRes int res) {
+        this.sourceImage = null;
+        this.drawable = null;
+        this.imageResources = null;
+        if (ImageUtils.isXmlDrawable(c.getResources(), res)) {
+            final Drawable dr = ContextCompat.getDrawable(c, res);
+            if (dr instanceof BitmapDrawable && ((BitmapDrawable)dr).getBitmap() != null) {
+                this.sourceImage = ((BitmapDrawable)dr).getBitmap();
+            } else {
+                this.drawable = dr;
+            }
+        } else {
+            this.imageResources = c.getResources();
+            this.imageRes = res;
+        }
     }
 
     private void invalidateConfig() {
         this.configured = false;
+        this.configGeneration++;
+        notifyConfigChanged();
+    }
+
+    private void invalidatePaint() {
+        this.paintVersion++;
+        this.titleLayouts.clear();
+        this.subtitleLayouts.clear();
+        invalidateConfig();
     }
 
     private float getFullTextHeight() {
@@ -298,32 +408,147 @@ public class ImageTextStateDisplay extends AbstractStateDisplay {
                 + titleSpacing + getPaddingTop() + getPaddingBottom(); // Spacing with top & bottom padding
     }
 
-    private void configure(final int availableWidth) {
-        if (!configured) {
-            final int totalNeededPadding = getPaddingLeft() + getPaddingRight();
+    private void configure(final EmptyStateRecyclerView rv, final int availableWidth) {
+        if (!configured || configuredWidth != availableWidth) {
+            final int maxTextWidth = availableWidth - getPaddingLeft() - getPaddingRight();
+            final int newImageSize = ((availableWidth + getPaddingLeft() + getPaddingRight()) / 3);
+
+            if (!prepareAsync) {
+                this.titleLayout = titleLayouts.get(title, titlePaint, paintVersion, maxTextWidth);
+                this.subtitleLayout = subtitleLayouts.get(subtitle, subtitlePaint, paintVersion, maxTextWidth);
+                this.imageSize = newImageSize;
+                if (drawable != null) {
+                    this.drawable.setBounds(0, 0, newImageSize, newImageSize);
+                } else {
+                    this.image = getScaledImage(newImageSize);
+                }
+                configured = true;
+                configuredWidth = availableWidth;
+            } else if (!preparing) {
+                prepare(rv, availableWidth, maxTextWidth, newImageSize);
+            }
+        }
+    }
 
-            // Create new static layout only if needed!
-            if ((titleLayout.getWidth() + totalNeededPadding) > availableWidth) {
-                this.titleLayout = new StaticLayout(title,
-                        titlePaint,
-                        availableWidth,
-                        Layout.Alignment.ALIGN_NORMAL,
-                        1.15f, 0, false);
+    /**
+     * Prepares the text layouts and scaled image in the background, using a copy of
+     * the current config.
+     */
+    private void prepare(final EmptyStateRecyclerView rv, final int availableWidth,
+                         final int maxTextWidth, final int newImageSize) {
+        this.preparing = true;
+        final int generation = configGeneration;
+        final String title = this.title;
+        final String subtitle = this.subtitle;
+        final TextPaint titlePaint = new TextPaint(this.titlePaint);
+        final TextPaint subtitlePaint = new TextPaint(this.subtitlePaint);
+        final int paintVersion = this.paintVersion;
+        final Resources imageResources = this.imageResources;
+        final int imageRes = this.imageRes;
+        final Bitmap sourceImage = this.sourceImage;
+        final Bitmap.Config config = getBitmapConfig();
+        final BitmapCache.Key imageKey = (drawable == null && (imageResources != null || sourceImage != null))
+                ? getScaledImageKey(newImageSize) : null;
+        // Only scale in the background if this display doesn't have it scaled already
+        final boolean scaleImage = (imageKey != null && scaledImages.get(imageKey) == null);
+
+        StatePreparer.prepare(rv, new StatePreparer.Task() {
+            private StaticLayout preparedTitle;
+            private StaticLayout preparedSubtitle;
+            private Bitmap preparedImage;
+
+            @Override
+            void onPrepare() {
+                this.preparedTitle = titleLayouts.get(title, titlePaint, paintVersion, maxTextWidth);
+                this.preparedSubtitle = subtitleLayouts.get(subtitle, subtitlePaint, paintVersion, maxTextWidth);
+                if (scaleImage) {
+                    this.preparedImage = acquireScaledImage(imageKey, newImageSize, config,
+                            imageResources, imageRes, sourceImage);
+                }
             }
 
-            // Create new static layout only if needed!
-            if ((subtitleLayout.getWidth() + totalNeededPadding) > availableWidth) {
-                this.subtitleLayout = new StaticLayout(subtitle,
-                        subtitlePaint,
-                        availableWidth,
-                        Layout.Alignment.ALIGN_NORMAL,
-                        1.15f, 0, false);
+            @Override
+            void onPublish() {
+                preparing = false;
+                if (isFailed()) {
+                    // Prepare on the main thread from now on
+                    prepareAsync = false;
+                }
+                if (isFailed() || generation != configGeneration) {
+                    // Incomplete, or stale (like the image changed, or the display was released meanwhile)
+                    if (preparedImage != null) {
+                        BitmapCache.getInstance().release(imageKey);
+                    }
+                    return;
+                }
+                if (preparedImage != null) {
+                    scaledImages.put(imageKey, preparedImage);
+                }
+                titleLayout = preparedTitle;
+                subtitleLayout = preparedSubtitle;
+                imageSize = newImageSize;
+                if (drawable != null) {
+                    drawable.setBounds(0, 0, newImageSize, newImageSize);
+                } else {
+                    image = (imageKey != null) ? scaledImages.get(imageKey) : null;
+                }
+                configured = true;
+                configuredWidth = availableWidth;
+                notifyConfigChanged();
             }
+        });
+    }
 
-            final int newImageSize = ((availableWidth + getPaddingLeft() + getPaddingRight()) / 3);
-            this.image = Bitmap.createScaledBitmap(image, newImageSize, newImageSize, false);
+    /**
+     * Gets the image scaled to the given size, reusing a previously scaled image
+     * of the same size if there is one (in this display, or any other display
+     * sharing the same source).
+     */
+    private Bitmap getScaledImage(final int size) {
+        if (imageResources == null && sourceImage == null) { return null; }
+        final BitmapCache.Key key = getScaledImageKey(size);
+        Bitmap scaled = scaledImages.get(key);
+        if (scaled == null) {
+            scaled = acquireScaledImage(key, size, getBitmapConfig(), imageResources, imageRes, sourceImage);
+            this.scaledImages.put(key, scaled);
+        }
+        return scaled;
+    }
+
+    private BitmapCache.Key getScaledImageKey(final int size) {
+        // Scaled without filtering, unlike the FIT_XY images of ImageStateDisplay
+        return new BitmapCache.Key(ImageTextStateDisplay.class,
+                (imageResources != null) ? ImageUtils.getResourceKey(imageResources, imageRes) : sourceImage,
+                size, size,
+                ImageStateDisplay.FIT_XY,
+                getBitmapConfig());
+    }
 
-            configured = true;
+    private Bitmap.Config getBitmapConfig() {
+        return (bitmapConfig != null) ? bitmapConfig : DisplayProfile.getBitmapConfig();
+    }
+
+    /**
+     * Acquires the scaled image for the key from the shared cache, scaling it if no
+     * display has yet. Always scales from the source image, so scaling never compounds.
+     * Only uses its arguments, so it can run in the background; the caller owns the
+     * acquired reference.
+     */
+    private static Bitmap acquireScaledImage(final BitmapCache.Key key, final int size, final Bitmap.Config config,
+                                             final Resources imageResources, final int imageRes,
+                                             final Bitmap sourceImage) {
+        final BitmapCache cache = BitmapCache.getInstance();
+        final Bitmap cached = cache.acquire(key);
+        if (cached != null) { return cached; }
+
+        final Bitmap source = (imageResources != null)
+                // Decode no bigger than needed, instead of decoding at full size to scale down
+                ? ImageUtils.decodeBitmap(imageResources, imageRes, size, size, config)
+                : sourceImage;
+        final Bitmap scaled = cache.put(key, ImageUtils.drawScaled(source, size, size, null, false, config), true);
+        if (source != sourceImage) {
+            BitmapPool.getInstance().put(source);
         }
+        return scaled;
     }
 }
\ No newline at end of file
@@ -1,9 +1,18 @@
 package com.tylersuehr.esr;
 
+import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.annotation.DrawableRes;
+import android.support.v4.content.res.ResourcesCompat;
+import android.util.TypedValue;
 
 /**
  * Copyright © 2017 Tyler Suehr
@@ -32,4 +41,155 @@ final class ImageUtils {
         dr.draw(canvas);
         return bitmap;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks if the drawable resource is defined in XML (like vectors and shapes),
+     * instead of being a bitmap.
+     *
+     * @param res {@link Resources} of the drawable
+     * @param resId Drawable resource
+     * @return True if defined in XML
+     */
+    static boolean isXmlDrawable(Resources res, @DrawableRes int resId) {
+        final TypedValue value = new TypedValue();
+        res.getValue(resId, value, true);
+        return value.string != null && value.string.toString().endsWith(".xml");
+    }
+
+    /**
+     * Gets a key for a drawable resource, as resolved for the current configuration, so
+     * caches never mix up the variants of a resource (like night mode or density ones),
+     * even across configuration changes and contexts with overridden configurations.
+     *
+     * @param res {@link Resources} of the drawable
+     * @param resId Drawable resource
+     * @return Key of the resolved resource
+     */
+    static String getResourceKey(Resources res, @DrawableRes int resId) {
+        final TypedValue value = new TypedValue();
+        res.getValue(resId, value, true);
+        if (value.string != null) {
+            // Path of the resolved file (which includes its qualifiers) and the density it's scaled to
+            return value.string + "@" + res.getDisplayMetrics().densityDpi;
+        }
+        final Configuration config = res.getConfiguration();
+        return "#" + resId + "@" + res.getDisplayMetrics().densityDpi + "/" + config.uiMode + "/" + config.orientation;
+    }
+
+    /**
+     * Decodes a drawable resource, subsampled to be as small as possible while still
+     * being at least the requested size, so the full-size image is never decoded just
+     * to be scaled down afterwards.
+     *
+     * Non-bitmap resources (like vectors) are rasterized at their intrinsic size.
+     *
+     * @param res {@link Resources} to decode from
+     * @param resId Drawable resource
+     * @param reqWidth Minimum needed width, or 0 if any width is fine
+     * @param reqHeight Minimum needed height, or 0 if any height is fine
+     * @param config Preferred {@link Bitmap.Config}; images with alpha may not honor it
+     * @return Decoded {@link Bitmap}
+     */
+    static Bitmap decodeBitmap(Resources res, @DrawableRes int resId, int reqWidth, int reqHeight,
+                               Bitmap.Config config) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = config;
+        if (reqWidth > 0 || reqHeight > 0) {
+            // Only decode the bounds first, to find how much we can subsample
+            options.inJustDecodeBounds = true;
+            options.inScaled = false;
+            BitmapFactory.decodeResource(res, resId, options);
+
+            if (options.outWidth > 0 && options.outHeight > 0) {
+                options.inSampleSize = calculateInSampleSize(
+                        options.outWidth, options.outHeight, reqWidth, reqHeight);
+                options.inJustDecodeBounds = false;
+                Bitmap bitmap = decodeReusing(res, resId, options);
+                if (bitmap != null) {
+                    return bitmap;
+                }
+            }
+        } else {
+            // Scaled for the screen density, the same as the drawable would be
+            Bitmap bitmap = BitmapFactory.decodeResource(res, resId, options);
+            if (bitmap != null) {
+                return bitmap;
+            }
+        }
+        return drawableToBitmap(ResourcesCompat.getDrawable(res, resId, null));
+    }
+
+    /**
+     * Decodes into a pooled bitmap if possible, which is only supported on KitKat and above
+     * for sampled decodes. The decoded bitmap will be mutable, so it can be pooled later.
+     */
+    private static Bitmap decodeReusing(Resources res, @DrawableRes int resId, BitmapFactory.Options options) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Round up, so the reused bitmap is never too small
+            final int sampledWidth = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+            final int sampledHeight = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+            final Bitmap reusable = BitmapPool.getInstance().takeForDecode(sampledWidth * sampledHeight
+                    * BitmapPool.getBytesPerPixel(options.inPreferredConfig));
+            options.inMutable = true;
+            if (reusable != null) {
+                options.inBitmap = reusable;
+                try {
+                    return BitmapFactory.decodeResource(res, resId, options);
+                } catch (IllegalArgumentException e) {
+                    // The pooled bitmap couldn't be reused; just decode into a new one
+                    options.inBitmap = null;
+                    BitmapPool.getInstance().put(reusable);
+                }
+            }
+        }
+        return BitmapFactory.decodeResource(res, resId, options);
+    }
+
+    /**
+     * Draws the source bitmap into a pooled bitmap of the given size.
+     *
+     * @param source {@link Bitmap} to draw
+     * @param width Width of the new bitmap
+     * @param height Height of the new bitmap
+     * @param target Where to draw the source in the new bitmap, or null to fill it
+     * @param filter True if the source should be filtered when scaled
+     * @param config Preferred {@link Bitmap.Config} of the new bitmap
+     * @return Pooled {@link Bitmap}
+     */
+    static Bitmap drawScaled(Bitmap source, int width, int height, RectF target, boolean filter,
+                             Bitmap.Config config) {
+        if (config == null || (config == Bitmap.Config.RGB_565 && source.hasAlpha())) {
+            // Keep the alpha of images that have it
+            config = (source.getConfig() != null) ? source.getConfig() : Bitmap.Config.ARGB_8888;
+        }
+        final Bitmap dest = BitmapPool.getInstance().get(width, height, config);
+        final Canvas canvas = new Canvas(dest);
+        if (target == null) {
+            target = new RectF(0, 0, width, height);
+        }
+        canvas.drawBitmap(source, null, target, filter ? new Paint(Paint.FILTER_BITMAP_FLAG) : null);
+        return dest;
+    }
+
+    /**
+     * Calculates the largest power of 2 sample size that keeps the image at least as
+     * big as the requested size.
+     *
+     * @param width Full width of the image
+     * @param height Full height of the image
+     * @param reqWidth Minimum needed width, or 0 if any width is fine
+     * @param reqHeight Minimum needed height, or 0 if any height is fine
+     * @return Sample size
+     */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        if (reqWidth <= 0 && reqHeight <= 0) {
+            return sampleSize;
+        }
+        while ((reqWidth <= 0 || width / (sampleSize << 1) >= reqWidth)
+                && (reqHeight <= 0 || height / (sampleSize << 1) >= reqHeight)) {
+            sampleSize <<= 1;
+        }
+        return sampleSize;
+    }
+}
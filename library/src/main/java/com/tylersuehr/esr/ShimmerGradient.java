@@ -0,0 +1,62 @@
+package com.tylersuehr.esr;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Highlight band that sweeps horizontally across everything drawn with a paint, used
+ * to give state displays a 'real' gradient shimmer.
+ *
+ * The gradient is allocated once in unit space; every frame only updates its local
+ * matrix to scale it to the band width and translate it by the animation progress, so
+ * no shader, paint, or other objects are allocated while animating.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+public final class ShimmerGradient {
+    /* Width of the highlight band relative to the available width */
+    private static final float BAND_WIDTH_RATIO = 0.6f;
+
+    private final LinearGradient gradient;
+    private final Matrix matrix = new Matrix();
+
+
+    public ShimmerGradient(@ColorInt int baseColor, @ColorInt int highlightColor) {
+        this.gradient = new LinearGradient(0, 0, 1, 0,
+                new int[] { baseColor, highlightColor, baseColor },
+                null, Shader.TileMode.CLAMP);
+    }
+
+    /**
+     * Positions the highlight band for the given progress and sets it on the paint.
+     *
+     * @param paint {@link Paint} to shade
+     * @param availableWidth Width the band sweeps across
+     * @param progress Sweep progress between 0 and 1
+     */
+    public void apply(@NonNull Paint paint, int availableWidth, float progress) {
+        final float bandWidth = availableWidth * BAND_WIDTH_RATIO;
+
+        // Sweep from fully off the left edge to fully off the right edge
+        this.matrix.setScale(bandWidth, 1f);
+        this.matrix.postTranslate(-bandWidth + (availableWidth + bandWidth) * progress, 0);
+        this.gradient.setLocalMatrix(matrix);
+        install(paint);
+    }
+
+    /**
+     * Sets the gradient on the paint, unless already set.
+     * @param paint {@link Paint} to shade
+     */
+    public void install(@NonNull Paint paint) {
+        if (paint.getShader() != gradient) {
+            paint.setShader(gradient);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.tylersuehr.esr;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Immutable lookup table of colors used to animate the shimmer of state displays.
+ *
+ * All the colors between the given key colors are interpolated once, when the palette
+ * is created, so resolving the color for an animation phase is a plain array lookup;
+ * no reflection, boxing, or allocation happens per animation frame.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+public final class ShimmerPalette {
+    /* Default colors used by all the stock animated state displays */
+    public static final ShimmerPalette DEFAULT = new ShimmerPalette(
+            0xFFE0E0E0, 0xFFBDBDBD, 0xFF9E9E9E);
+
+    private static final int LUT_SIZE = 256;
+
+    /* Stores all the precomputed colors */
+    private final int[] lut = new int[LUT_SIZE];
+
+
+    /**
+     * Constructs a palette that interpolates evenly between all the given colors.
+     * @param keyColors At least one ARGB color
+     */
+    public ShimmerPalette(int... keyColors) {
+        if (keyColors == null || keyColors.length == 0) {
+            throw new IllegalArgumentException("Palette needs at least one color!");
+        }
+
+        final int segments = keyColors.length - 1;
+        for (int i = 0; i < LUT_SIZE; i++) {
+            if (segments == 0) {
+                this.lut[i] = keyColors[0];
+                continue;
+            }
+
+            // Find the segment this entry falls in and its fraction in that segment
+            final float position = (float)i / (LUT_SIZE - 1) * segments;
+            final int segment = Math.min((int)position, segments - 1);
+            this.lut[i] = interpolate(keyColors[segment], keyColors[segment + 1], position - segment);
+        }
+    }
+
+    /**
+     * Gets the color at the given animation fraction.
+     *
+     * @param fraction Fraction between 0 and 1
+     * @return ARGB color
+     */
+    public int colorAt(float fraction) {
+        int index = (int)(fraction * (LUT_SIZE - 1) + 0.5f);
+        if (index < 0) {
+            index = 0;
+        } else if (index >= LUT_SIZE) {
+            index = LUT_SIZE - 1;
+        }
+        return lut[index];
+    }
+
+    /**
+     * Linearly interpolates each ARGB channel of two colors.
+     *
+     * @param from Start color
+     * @param to End color
+     * @param fraction Fraction between 0 and 1
+     * @return Interpolated ARGB color
+     */
+    public static int interpolate(int from, int to, float fraction) {
+        final int a = (from >>> 24) + (int)(((to >>> 24) - (from >>> 24)) * fraction);
+        final int r = ((from >> 16) & 0xFF) + (int)((((to >> 16) & 0xFF) - ((from >> 16) & 0xFF)) * fraction);
+        final int g = ((from >> 8) & 0xFF) + (int)((((to >> 8) & 0xFF) - ((from >> 8) & 0xFF)) * fraction);
+        final int b = (from & 0xFF) + (int)(((to & 0xFF) - (from & 0xFF)) * fraction);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
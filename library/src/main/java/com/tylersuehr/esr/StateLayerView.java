@@ -0,0 +1,61 @@
+package com.tylersuehr.esr;
+import android.annotation.TargetApi;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.view.View;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * View in the overlay of an {@link EmptyStateRecyclerView} that draws a layer animated
+ * state display into a hardware layer.
+ *
+ * The display is only drawn into the layer when it changes; animating the alpha of this
+ * view just composites the layer with a new alpha on the render thread, so neither the
+ * display nor the recycler is drawn again on each frame.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+final class StateLayerView extends View {
+    private final EmptyStateRecyclerView rv;
+    private final EmptyStateRecyclerView.LayerAnimatedStateDisplay display;
+
+
+    StateLayerView(EmptyStateRecyclerView rv, EmptyStateRecyclerView.LayerAnimatedStateDisplay display) {
+        super(rv.getContext());
+        this.rv = rv;
+        this.display = display;
+        setLayerType(LAYER_TYPE_HARDWARE, null);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        this.display.onDrawState(rv, canvas);
+    }
+
+    /**
+     * Gets the state display drawn into the layer.
+     * @return {@link EmptyStateRecyclerView.LayerAnimatedStateDisplay}
+     */
+    EmptyStateRecyclerView.LayerAnimatedStateDisplay getStateDisplay() {
+        return display;
+    }
+
+    /**
+     * Adds the view to the overlay of the recycler, covering all of it.
+     */
+    void attach() {
+        this.rv.getOverlay().add(this);
+        layout(0, 0, rv.getWidth(), rv.getHeight());
+    }
+
+    /**
+     * Removes the view from the overlay of the recycler, letting go of its layer.
+     */
+    void detach() {
+        setLayerType(LAYER_TYPE_NONE, null);
+        this.rv.getOverlay().remove(this);
+    }
+}
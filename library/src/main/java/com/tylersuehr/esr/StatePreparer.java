@@ -0,0 +1,116 @@
+package com.tylersuehr.esr;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Prepares the heavy resources of state displays (decoding and scaling images, laying out
+ * text) on a shared background thread, instead of in the draw pass.
+ *
+ * A display captures everything its {@link Task} needs on the main thread, the task prepares
+ * its results in the background, and then publishes them all at once on the main thread.
+ * The recycler is invalidated once afterwards, so the display is drawn with its results;
+ * until then the display draws whatever it has (like its previous results, or nothing).
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+final class StatePreparer {
+    private static final Executor executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "esr-prepare");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private static final String TAG = "StatePreparer";
+    private static Handler mainHandler;
+
+
+    private StatePreparer() {}
+
+    /**
+     * Prepares the task in the background, then publishes it on the main thread
+     * and invalidates the recycler. The task is published even if preparing it
+     * failed, so the display can fall back to preparing on the main thread.
+     *
+     * @param rv {@link EmptyStateRecyclerView} drawing the display
+     * @param task {@link Task}
+     */
+    @MainThread
+    static void prepare(@NonNull final EmptyStateRecyclerView rv, @NonNull final Task task) {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        final Handler handler = mainHandler;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.onPrepare();
+                } catch (Throwable t) {
+                    // Don't let one failed task kill the thread, or leave its display waiting forever
+                    Log.w(TAG, "Preparing a state display failed!", t);
+                    task.failed = true;
+                }
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        task.onPublish();
+                        rv.invalidate();
+                    }
+                });
+            }
+        });
+    }
+
+
+    /**
+     * Work for preparing the resources of a state display.
+     */
+    abstract static class Task {
+        /* True if preparing threw; set before publishing */
+        private volatile boolean failed = false;
+
+        /**
+         * Checks if preparing the results failed (like running out of memory, or a
+         * missing resource), in which case the results are incomplete.
+         * @return True if failed
+         */
+        @MainThread
+        final boolean isFailed() {
+            return failed;
+        }
+
+        /**
+         * Prepares the results. Only use what was captured when the task was
+         * created; the display may change while this runs.
+         */
+        @WorkerThread
+        abstract void onPrepare();
+
+        /**
+         * Publishes the results to the display, unless the display changed since
+         * the task was created, or preparing them failed. Always called, so the
+         * display can clear its in-flight state.
+         */
+        @MainThread
+        abstract void onPublish();
+    }
+}
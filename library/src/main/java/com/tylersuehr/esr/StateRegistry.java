@@ -0,0 +1,65 @@
+package com.tylersuehr.esr;
+import android.support.annotation.NonNull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Process-wide registry of named states, handing out compact ids for custom states
+ * beyond the four stock states of {@link EmptyStateRecyclerView}.
+ *
+ * Ids are dense (starting right after the stock states), so they can directly index
+ * the state display arrays of every recycler. The same name always gets the same id,
+ * so ids can be shared by all recyclers in the process.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+final class StateRegistry {
+    private static final Map<String, Byte> ids = new HashMap<>();
+    private static final String[] names = new String[Byte.MAX_VALUE + 1];
+    private static int nextId = 0;
+
+    static {
+        register("loading"); // EmptyStateRecyclerView.STATE_LOADING
+        register("empty");   // EmptyStateRecyclerView.STATE_EMPTY
+        register("error");   // EmptyStateRecyclerView.STATE_ERROR
+        register("ok");      // EmptyStateRecyclerView.STATE_OK
+    }
+
+
+    private StateRegistry() {}
+
+    /**
+     * Registers a state with the given name, if not already registered.
+     *
+     * @param name Unique name of the state
+     * @return Id of the state
+     */
+    static synchronized byte register(@NonNull String name) {
+        final Byte existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        if (nextId > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Cannot register more than "
+                    + (Byte.MAX_VALUE + 1) + " states!");
+        }
+
+        final byte id = (byte)nextId++;
+        ids.put(name, id);
+        names[id] = name;
+        return id;
+    }
+
+    /**
+     * Gets the name of the state with the given id.
+     *
+     * @param state Id of the state
+     * @return Name of the state, or null if not registered
+     */
+    static synchronized String getName(byte state) {
+        return (state >= 0) ? names[state] : null;
+    }
+}
@@ -0,0 +1,196 @@
+package com.tylersuehr.esr;
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Lock-free store for the state of an {@link EmptyStateRecyclerView} and the state
+ * displays for all of its states.
+ *
+ * The state and displays are kept together in an immutable {@link Snapshot}, published
+ * atomically. Readers (like the draw pass) only do a single volatile read and never see a
+ * state paired with displays from a different mutation; writers copy the snapshot, change
+ * the copy, and publish it with compare-and-set.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+final class StateStore {
+    private final AtomicReference<Snapshot> snapshot;
+
+
+    StateStore(byte initialState) {
+        this.snapshot = new AtomicReference<>(new Snapshot(initialState, new EmptyStateRecyclerView.StateDisplay[0]));
+    }
+
+    /**
+     * Gets the current snapshot of the state and its displays.
+     * @return {@link Snapshot}
+     */
+    @NonNull
+    Snapshot get() {
+        return snapshot.get();
+    }
+
+    /**
+     * Sets the current state.
+     *
+     * @param state State to set
+     * @return True if the state changed
+     */
+    boolean setState(byte state) {
+        Snapshot current;
+        do {
+            current = snapshot.get();
+            if (current.state == state) { return false; }
+        } while (!snapshot.compareAndSet(current, new Snapshot(state, current.displays)));
+        return true;
+    }
+
+    /**
+     * Sets the display for the given state; a null display removes it.
+     *
+     * @param state State of the display
+     * @param display {@link EmptyStateRecyclerView.StateDisplay} or null
+     */
+    void putDisplay(byte state, EmptyStateRecyclerView.StateDisplay display) {
+        checkState(state);
+        Snapshot current;
+        EmptyStateRecyclerView.StateDisplay[] displays;
+        do {
+            current = snapshot.get();
+            displays = Arrays.copyOf(current.displays, Math.max(current.displays.length, state + 1));
+            displays[state] = display;
+        } while (!snapshot.compareAndSet(current, new Snapshot(current.state, displays)));
+    }
+
+    /**
+     * Sets the displays for all the given states in one atomic change.
+     *
+     * @param states States of the displays
+     * @param newDisplays Displays for each state
+     */
+    void putDisplays(byte[] states, EmptyStateRecyclerView.StateDisplay[] newDisplays) {
+        int length = 0;
+        for (byte state : states) {
+            checkState(state);
+            length = Math.max(length, state + 1);
+        }
+
+        Snapshot current;
+        EmptyStateRecyclerView.StateDisplay[] displays;
+        do {
+            current = snapshot.get();
+            displays = Arrays.copyOf(current.displays, Math.max(current.displays.length, length));
+            for (int i = 0; i < states.length; i++) {
+                displays[states[i]] = newDisplays[i];
+            }
+        } while (!snapshot.compareAndSet(current, new Snapshot(current.state, displays)));
+    }
+
+    /**
+     * Removes the display for the given state.
+     *
+     * @param state State of the display
+     * @return True if a display was removed
+     */
+    boolean removeDisplay(byte state) {
+        Snapshot current;
+        EmptyStateRecyclerView.StateDisplay[] displays;
+        do {
+            current = snapshot.get();
+            if (current.getDisplay(state) == null) { return false; }
+            displays = current.displays.clone();
+            displays[state] = null;
+        } while (!snapshot.compareAndSet(current, new Snapshot(current.state, displays)));
+        return true;
+    }
+
+    /**
+     * Removes the displays for all states.
+     * @return True if any displays were removed
+     */
+    boolean clearDisplays() {
+        Snapshot current;
+        do {
+            current = snapshot.get();
+            if (current.isEmpty()) { return false; }
+        } while (!snapshot.compareAndSet(current, new Snapshot(current.state,
+                new EmptyStateRecyclerView.StateDisplay[current.displays.length])));
+        return true;
+    }
+
+    private static void checkState(byte state) {
+        if (state < 0) {
+            throw new IllegalArgumentException("State cannot be negative!");
+        }
+    }
+
+
+    /**
+     * Immutable snapshot of a state and the displays for all states.
+     */
+    static final class Snapshot {
+        final byte state;
+        private final EmptyStateRecyclerView.StateDisplay[] displays;
+
+
+        private Snapshot(byte state, EmptyStateRecyclerView.StateDisplay[] displays) {
+            this.state = state;
+            this.displays = displays;
+        }
+
+        /**
+         * Gets the display for the given state.
+         *
+         * @param state State of the display
+         * @return {@link EmptyStateRecyclerView.StateDisplay} or null
+         */
+        EmptyStateRecyclerView.StateDisplay getDisplay(int state) {
+            return (state >= 0 && state < displays.length) ? displays[state] : null;
+        }
+
+        /**
+         * Gets the display for the current state.
+         * @return {@link EmptyStateRecyclerView.StateDisplay} or null
+         */
+        EmptyStateRecyclerView.StateDisplay getCurrentDisplay() {
+            return getDisplay(state);
+        }
+
+        /**
+         * Gets the amount of display slots, one per state up to the highest state
+         * with a display.
+         * @return Amount of display slots
+         */
+        int getDisplayCount() {
+            return displays.length;
+        }
+
+        /**
+         * Checks if the given display is the display of any state.
+         *
+         * @param display {@link EmptyStateRecyclerView.StateDisplay}
+         * @return True if found
+         */
+        boolean containsDisplay(EmptyStateRecyclerView.StateDisplay display) {
+            for (EmptyStateRecyclerView.StateDisplay d : displays) {
+                if (d == display) { return true; }
+            }
+            return false;
+        }
+
+        /**
+         * Checks if there aren't any displays for any state.
+         * @return True if there are no displays
+         */
+        boolean isEmpty() {
+            for (EmptyStateRecyclerView.StateDisplay display : displays) {
+                if (display != null) { return false; }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.tylersuehr.esr;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Small cache of the layouts of one text of a state display, keyed by the text, the
+ * version of the paint it's laid out with, and the width it's laid out for; so going
+ * back and forth between widths (like when rotating, or resizing in multi-window) reuses
+ * the layouts for each width, whether the width shrinks or grows.
+ *
+ * Single line layouts are reused for any width they fit in. Displays should bump their
+ * paint version whenever the paint changes, since layouts keep using the paint they
+ * were laid out with.
+ *
+ * This is safe to use from any thread.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+final class TextLayoutCache {
+    /* Max amount of layouts kept (e.g. one per orientation, and a multi-window size) */
+    private static final int MAX_LAYOUTS = 3;
+
+    /* Stores the layouts, from most to least recently used */
+    private final Entry[] entries = new Entry[MAX_LAYOUTS];
+
+
+    /**
+     * Gets the layout of the text for the given width, laying it out if not cached.
+     *
+     * @param text Text to lay out, or null for none
+     * @param paint {@link TextPaint} to lay out with
+     * @param paintVersion Version of the paint
+     * @param maxWidth Max width of the layout
+     * @return {@link StaticLayout}
+     */
+    StaticLayout get(String text, TextPaint paint, int paintVersion, int maxWidth) {
+        if (text == null) {
+            text = "";
+        }
+        synchronized (this) {
+            for (int i = 0; i < entries.length; i++) {
+                final Entry entry = entries[i];
+                if (entry != null && entry.matches(text, paintVersion, maxWidth)) {
+                    moveToFront(i, entry);
+                    return entry.layout;
+                }
+            }
+        }
+
+        // Lay out without holding the lock; it's the slow part
+        final StaticLayout layout = TextLayouts.build(text, paint, maxWidth);
+        synchronized (this) {
+            moveToFront(entries.length - 1, new Entry(text, paintVersion, maxWidth, layout));
+        }
+        return layout;
+    }
+
+    /**
+     * Drops all layouts; call when the text or paint changed.
+     */
+    synchronized void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            this.entries[i] = null;
+        }
+    }
+
+    private void moveToFront(int index, Entry entry) {
+        System.arraycopy(entries, 0, entries, 1, index);
+        this.entries[0] = entry;
+    }
+
+
+    private static final class Entry {
+        final String text;
+        final int paintVersion;
+        final int maxWidth;
+        final StaticLayout layout;
+
+
+        Entry(String text, int paintVersion, int maxWidth, StaticLayout layout) {
+            this.text = text;
+            this.paintVersion = paintVersion;
+            this.maxWidth = maxWidth;
+            this.layout = layout;
+        }
+
+        boolean matches(String text, int paintVersion, int maxWidth) {
+            if (this.paintVersion != paintVersion || !this.text.equals(text)) {
+                return false;
+            }
+            // Single lines look the same for any width they fit in
+            return this.maxWidth == maxWidth
+                    || (layout.getLineCount() == 1 && layout.getWidth() <= maxWidth);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tylersuehr.esr;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+/**
+ * Copyright © 2017 Tyler Suehr
+ *
+ * Builds the text layouts of state displays. This only uses its arguments, so it's
+ * safe to use from any thread, as long as the paint isn't changed meanwhile.
+ *
+ * @author Tyler Suehr
+ * @version 1.0
+ */
+final class TextLayouts {
+    private TextLayouts() {}
+
+    /**
+     * Lays out the text as a single line if it fits in the max width, otherwise
+     * wrapped to the max width.
+     *
+     * @param text Text to lay out, or null for none
+     * @param paint {@link TextPaint} to lay out with
+     * @param maxWidth Max width of the layout
+     * @return {@link StaticLayout}
+     */
+    static StaticLayout build(String text, TextPaint paint, int maxWidth) {
+        if (text == null) {
+            text = "";
+        }
+        final int textWidth = (int)paint.measureText(text);
+        if (textWidth <= maxWidth) {
+            // Default to a single line of text
+            return new StaticLayout(text,
+                    paint,
+                    textWidth,
+                    Layout.Alignment.ALIGN_NORMAL,
+                    1.0f, 0, false);
+        }
+        return new StaticLayout(text,
+                paint,
+                Math.max(0, maxWidth),
+                Layout.Alignment.ALIGN_NORMAL,
+                1.15f, 0, false);
+    }
+}
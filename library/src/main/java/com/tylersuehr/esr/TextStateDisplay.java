@@ -9,7 +9,6 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.view.GravityCompat;
 import android.support.v4.view.ViewCompat;
-import android.text.Layout;
 import android.text.StaticLayout;
 import android.text.TextPaint;
 import android.util.DisplayMetrics;
@@ -27,16 +26,38 @@ import android.view.Gravity;
  */
 public class TextStateDisplay extends AbstractStateDisplay {
     private boolean textLayoutsConfigured = false;
+    private int configuredWidth;
+    /* Incremented whenever the text layouts are invalidated */
+    private int textGeneration;
+    /* True if the text should be laid out in the background, instead of when drawn */
+    private boolean prepareAsync = false;
+    private boolean preparingText = false;
+    /* True if laying out in the background failed, so it's done when drawn instead */
+    private boolean prepareFailed = false;
+    /* True if the text changes often, so it's never laid out in the draw pass */
+    private boolean dynamicText = false;
+    /* Reused to find the height and baseline of single line texts */
+    private final Paint.FontMetricsInt fontMetrics = new Paint.FontMetricsInt();
 
     /* Properties for the title text */
     private final TextPaint titlePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
     private StaticLayout titleLayout;
+    private final TextLayoutCache titleLayouts = new TextLayoutCache();
     private String title;
+    /* Title drawn as a single line without a layout, if dynamic and it fits */
+    private String titleLine;
+    private int titleLineWidth;
 
     /* Properties for the subtitle text */
     private final TextPaint subtitlePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
     private StaticLayout subtitleLayout;
+    private final TextLayoutCache subtitleLayouts = new TextLayoutCache();
     private String subtitle;
+    /* Subtitle drawn as a single line without a layout, if dynamic and it fits */
+    private String subtitleLine;
+    private int subtitleLineWidth;
+    /* Incremented whenever the paints change, so layouts with old paints aren't reused */
+    private int paintVersion;
 
     /* Stores the gravity for the text */
     private int textGravity = Gravity.CENTER;
@@ -62,32 +83,19 @@ public class TextStateDisplay extends AbstractStateDisplay {
         this.titlePaint.setColor(Color.BLACK);
         this.title = title;
 
-        // Default to a single line of text
-        this.titleLayout = new StaticLayout(title,
-                titlePaint,
-                (int)titlePaint.measureText(title),
-                Layout.Alignment.ALIGN_NORMAL,
-                1.0f, 0, false);
-
         // Setup subtitle defaults
         this.subtitlePaint.setTextSize(14f * dm.scaledDensity);
         this.subtitlePaint.setTextAlign(Paint.Align.CENTER);
         this.subtitlePaint.setColor(Color.GRAY);
         this.subtitle = subtitle;
-
-        // Default to a single line of text
-        this.subtitleLayout = new StaticLayout(subtitle,
-                subtitlePaint,
-                (int)subtitlePaint.measureText(subtitle),
-                Layout.Alignment.ALIGN_NORMAL,
-                1.0f, 0, false);
+        // Text is laid out when first drawn, once the available width is known
     }
 
     @Override
     public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {
         final int width = rv.getMeasuredWidth();
         final int height = rv.getMeasuredHeight();
-        configureTextLayouts(width);
+        configureTextLayouts(rv, width); // Texts still being laid out aren't drawn
 
         // Account for vertical text gravity
         final int verticalGravity = textGravity&Gravity.VERTICAL_GRAVITY_MASK;
@@ -110,23 +118,13 @@ public class TextStateDisplay extends AbstractStateDisplay {
                 ViewCompat.getLayoutDirection(rv))&Gravity.HORIZONTAL_GRAVITY_MASK;
 
         // Draw the title text
-        canvas.save();
-        canvas.translate(
-                getDx(width, horizontalGravity, titlePaint, titleLayout),
-                dy);
-        this.titleLayout.draw(canvas);
-        canvas.restore();
+        drawText(canvas, width, horizontalGravity, titleLine, titleLineWidth, titleLayout, titlePaint, dy);
 
         // Add spacing for under the text with the title spacing
-        dy += titleLayout.getHeight() + titleSpacing;
+        dy += getTextHeight(titleLine, titleLayout, titlePaint) + titleSpacing;
 
         // Draw the subtitle text under the title text
-        canvas.save();
-        canvas.translate(
-                getDx(width, horizontalGravity, subtitlePaint, subtitleLayout),
-                dy);
-        this.subtitleLayout.draw(canvas);
-        canvas.restore();
+        drawText(canvas, width, horizontalGravity, subtitleLine, subtitleLineWidth, subtitleLayout, subtitlePaint, dy);
     }
 
     @Override
@@ -155,7 +153,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
                 break;
         }
         this.textGravity = gravity;
-        // No invalidation needed
+        invalidatePaint();
     }
 
     /**
@@ -164,7 +162,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitleSpacing(int spacing) {
         this.titleSpacing = spacing;
-        // No invalidation needed
+        notifyConfigChanged(); // No need to lay out again
     }
 
     /**
@@ -173,7 +171,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitleTextColor(@ColorInt int color) {
         this.titlePaint.setColor(color);
-        invalidateText();
+        invalidatePaint();
     }
 
     /**
@@ -182,7 +180,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitleTextSize(float textSize) {
         this.titlePaint.setTextSize(textSize);
-        invalidateText();
+        invalidatePaint();
     }
 
     /**
@@ -191,7 +189,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitleTextAlign(Paint.Align align) {
         this.titlePaint.setTextAlign(align);
-        invalidateText();
+        invalidatePaint();
     }
 
     /**
@@ -200,6 +198,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setTitle(String title) {
         this.title = title;
+        this.titleLayouts.clear();
         invalidateText();
     }
 
@@ -209,7 +208,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setSubtitleTextColor(@ColorInt int color) {
         this.subtitlePaint.setColor(color);
-        invalidateText();
+        invalidatePaint();
     }
 
     /**
@@ -218,7 +217,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setSubtitleTextSize(float textSize) {
         this.subtitlePaint.setTextSize(textSize);
-        invalidateText();
+        invalidatePaint();
     }
 
     /**
@@ -227,7 +226,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setSubtitleTextAlign(Paint.Align align) {
         this.subtitlePaint.setTextAlign(align);
-        invalidateText();
+        invalidatePaint();
     }
 
     /**
@@ -236,6 +235,7 @@ public class TextStateDisplay extends AbstractStateDisplay {
      */
     public void setSubtitle(String subtitle) {
         this.subtitle = subtitle;
+        this.subtitleLayouts.clear();
         invalidateText();
     }
 
@@ -246,28 +246,60 @@ public class TextStateDisplay extends AbstractStateDisplay {
     public void setTypeface(Typeface typeface) {
         this.titlePaint.setTypeface(typeface);
         this.subtitlePaint.setTypeface(typeface);
+        invalidatePaint();
+    }
+
+    /**
+     * Sets whether the text is laid out on a background thread, instead of in the draw
+     * pass. Until the text is laid out, the previous text (or nothing) is drawn.
+     *
+     * @param prepareAsync True to lay out the text in the background
+     */
+    public void setPrepareAsync(boolean prepareAsync) {
+        this.prepareAsync = prepareAsync;
+    }
+
+    /**
+     * Sets whether the text changes often (like a subtitle showing a search query as it's
+     * typed). Dynamic text that fits on one line is drawn directly, without laying it out;
+     * longer text is laid out in the background, at most once at a time, so text set many
+     * times in a row is only laid out for the latest text.
+     *
+     * @param dynamicText True if the text changes often
+     */
+    public void setDynamicText(boolean dynamicText) {
+        this.dynamicText = dynamicText;
         invalidateText();
     }
 
     private void invalidateText() {
         this.textLayoutsConfigured = false;
+        this.textGeneration++;
+        notifyConfigChanged();
+    }
+
+    private void invalidatePaint() {
+        this.paintVersion++;
+        this.titleLayouts.clear();
+        this.subtitleLayouts.clear();
+        invalidateText();
     }
 
     private float getFullTextHeight() {
-        return titleLayout.getHeight() // Height of all title lines (could be more than 1)
-                + subtitleLayout.getHeight() // Height of all subtitle lines (could be more than 1)
+        return getTextHeight(titleLine, titleLayout, titlePaint) // Height of all title lines (could be more than 1)
+                + getTextHeight(subtitleLine, subtitleLayout, subtitlePaint) // Height of all subtitle lines (could be more than 1)
                 + titleSpacing + getPaddingTop() + getPaddingBottom(); // Spacing with top & bottom padding
     }
 
     private float getDx(final int width,
                         final int horizontalGravity,
                         final Paint paint,
-                        final StaticLayout layout) {
+                        final int textWidth) {
         final boolean centered = paint.getTextAlign() == Paint.Align.CENTER;
         final float dx;
         switch (horizontalGravity) { // No support for GravityCompat.END
             case Gravity.CENTER_HORIZONTAL:
-                dx = (width >> 1) - (centered ? 0 : (layout.getWidth() >> 1) - getPaddingLeft());
+                dx = (width >> 1) - (centered ? 0 : (textWidth >> 1) - getPaddingLeft());
                 break;
             default:
             case GravityCompat.START:
@@ -277,29 +309,107 @@ public class TextStateDisplay extends AbstractStateDisplay {
         return dx;
     }
 
-    private void configureTextLayouts(final int availableWidth) {
-        if (!textLayoutsConfigured) {
-            final int totalNeededPadding = getPaddingLeft() + getPaddingRight();
-
-            // Create new static layout only if needed!
-            if ((titleLayout.getWidth() + totalNeededPadding) > availableWidth) {
-                this.titleLayout = new StaticLayout(title,
-                        titlePaint,
-                        availableWidth - totalNeededPadding,
-                        Layout.Alignment.ALIGN_NORMAL,
-                        1.15f, 0, false);
-            }
+    private void drawText(final Canvas canvas,
+                          final int width,
+                          final int horizontalGravity,
+                          final String line,
+                          final int lineWidth,
+                          final StaticLayout layout,
+                          final TextPaint paint,
+                          final float dy) {
+        if (line != null) {
+            // Same position as a single line layout would be drawn at
+            paint.getFontMetricsInt(fontMetrics);
+            canvas.drawText(line, getDx(width, horizontalGravity, paint, lineWidth),
+                    dy - fontMetrics.ascent, paint);
+        } else if (layout != null) {
+            canvas.save();
+            canvas.translate(getDx(width, horizontalGravity, paint, layout.getWidth()), dy);
+            layout.draw(canvas);
+            canvas.restore();
+        }
+    }
 
-            // Create new static layout only if needed!
-            if ((subtitleLayout.getWidth() + totalNeededPadding) > availableWidth) {
-                this.subtitleLayout = new StaticLayout(subtitle,
-                        subtitlePaint,
-                        availableWidth - totalNeededPadding,
-                        Layout.Alignment.ALIGN_NORMAL,
-                        1.15f, 0, false);
-            }
+    private int getTextHeight(final String line, final StaticLayout layout, final TextPaint paint) {
+        if (line != null) {
+            paint.getFontMetricsInt(fontMetrics);
+            return fontMetrics.descent - fontMetrics.ascent;
+        }
+        return (layout != null) ? layout.getHeight() : 0;
+    }
+
+    /**
+     * Measures the text if it can be drawn as a single line in the max width.
+     * @return Width of the text, or -1 if it needs to be laid out
+     */
+    private static int measureSingleLine(final String text, final TextPaint paint, final int maxWidth) {
+        if (text.indexOf('\n') >= 0) {
+            return -1;
+        }
+        final int textWidth = (int)paint.measureText(text);
+        return (textWidth <= maxWidth) ? textWidth : -1;
+    }
 
-            textLayoutsConfigured = true;
+    private void configureTextLayouts(final EmptyStateRecyclerView rv, final int availableWidth) {
+        // Layouts are reconfigured for any width change, so text rewraps both ways
+        if (!textLayoutsConfigured || configuredWidth != availableWidth) {
+            final int maxWidth = availableWidth - getPaddingLeft() - getPaddingRight();
+            this.titleLine = null;
+            this.subtitleLine = null;
+            if (dynamicText) {
+                // Dynamic text that fits on one line doesn't need to be laid out at all
+                final String title = (this.title != null) ? this.title : "";
+                final String subtitle = (this.subtitle != null) ? this.subtitle : "";
+                this.titleLineWidth = measureSingleLine(title, titlePaint, maxWidth);
+                this.subtitleLineWidth = measureSingleLine(subtitle, subtitlePaint, maxWidth);
+                this.titleLine = (titleLineWidth >= 0) ? title : null;
+                this.subtitleLine = (subtitleLineWidth >= 0) ? subtitle : null;
+                if (titleLine != null && subtitleLine != null) {
+                    textLayoutsConfigured = true;
+                    configuredWidth = availableWidth;
+                    return;
+                }
+            }
+            if ((!prepareAsync && !dynamicText) || prepareFailed) {
+                this.titleLayout = titleLayouts.get(title, titlePaint, paintVersion, maxWidth);
+                this.subtitleLayout = subtitleLayouts.get(subtitle, subtitlePaint, paintVersion, maxWidth);
+                textLayoutsConfigured = true;
+                configuredWidth = availableWidth;
+            } else if (!preparingText) {
+                // Lay out the current text, with copies of the paints, in the background;
+                // text changed meanwhile is laid out once this is published
+                this.preparingText = true;
+                final int generation = textGeneration;
+                final String title = this.title;
+                final String subtitle = this.subtitle;
+                final TextPaint titlePaint = new TextPaint(this.titlePaint);
+                final TextPaint subtitlePaint = new TextPaint(this.subtitlePaint);
+                final int paintVersion = this.paintVersion;
+                StatePreparer.prepare(rv, new StatePreparer.Task() {
+                    private StaticLayout preparedTitle;
+                    private StaticLayout preparedSubtitle;
+
+                    @Override
+                    void onPrepare() {
+                        this.preparedTitle = titleLayouts.get(title, titlePaint, paintVersion, maxWidth);
+                        this.preparedSubtitle = subtitleLayouts.get(subtitle, subtitlePaint, paintVersion, maxWidth);
+                    }
+
+                    @Override
+                    void onPublish() {
+                        preparingText = false;
+                        if (isFailed()) {
+                            prepareFailed = true;
+                        } else if (generation == textGeneration) {
+                            titleLayout = preparedTitle;
+                            subtitleLayout = preparedSubtitle;
+                            textLayoutsConfigured = true;
+                            configuredWidth = availableWidth;
+                            notifyConfigChanged();
+                        }
+                    }
+                });
+            }
         }
     }
-}
+}
\ No newline at end of file
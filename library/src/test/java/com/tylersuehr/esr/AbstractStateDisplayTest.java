@@ -0,0 +1,40 @@
+package com.tylersuehr.esr;
+
+import android.graphics.Canvas;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AbstractStateDisplay}.
+ */
+public class AbstractStateDisplayTest {
+    @Test
+    public void setPadding_changesConfigVersion() throws Exception {
+        TestDisplay display = new TestDisplay();
+        final int version = display.getConfigVersion();
+        display.setPadding(1, 2, 3, 4);
+        assertNotEquals(version, display.getConfigVersion());
+    }
+
+    @Test
+    public void notifyConfigChanged_changesConfigVersion() throws Exception {
+        TestDisplay display = new TestDisplay();
+        final int version = display.getConfigVersion();
+        display.change();
+        assertEquals(version + 1, display.getConfigVersion());
+        display.change();
+        assertEquals(version + 2, display.getConfigVersion());
+    }
+
+
+    private static final class TestDisplay extends AbstractStateDisplay {
+        @Override
+        public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {}
+
+        void change() {
+            notifyConfigChanged();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.tylersuehr.esr;
+
+import org.junit.Test;
+
+import static com.tylersuehr.esr.EmptyStateRecyclerView.*;
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for deriving the state from the adapter.
+ */
+public class AdapterStateTest {
+    @Test
+    public void deriveAdapterState_okWhenAdapterHasItems() throws Exception {
+        assertEquals(STATE_OK, deriveAdapterState(STATE_OK, 3, false));
+        assertEquals(STATE_OK, deriveAdapterState(STATE_EMPTY, 3, false));
+        assertEquals(STATE_OK, deriveAdapterState(STATE_ERROR, 3, true));
+    }
+
+    @Test
+    public void deriveAdapterState_emptyWhenOkAdapterHasNoItems() throws Exception {
+        assertEquals(STATE_EMPTY, deriveAdapterState(STATE_OK, 0, false));
+    }
+
+    @Test
+    public void deriveAdapterState_loadingResolvedByAdapterChange() throws Exception {
+        // Loading, then the loaded (empty) items are set
+        assertEquals(STATE_EMPTY, deriveAdapterState(STATE_LOADING, 0, true));
+        assertEquals(STATE_OK, deriveAdapterState(STATE_LOADING, 5, true));
+    }
+
+    @Test
+    public void deriveAdapterState_keepsLoadingUntilAdapterChanges() throws Exception {
+        assertEquals(-1, deriveAdapterState(STATE_LOADING, 0, false));
+        // Loading invoked mid-refresh, while the old items are still shown
+        assertEquals(-1, deriveAdapterState(STATE_LOADING, 3, false));
+    }
+
+    @Test
+    public void deriveAdapterState_keepsErrorWithoutItems() throws Exception {
+        assertEquals(-1, deriveAdapterState(STATE_ERROR, 0, true));
+        assertEquals(-1, deriveAdapterState(STATE_EMPTY, 0, true));
+    }
+}
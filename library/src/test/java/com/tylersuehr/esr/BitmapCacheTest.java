@@ -0,0 +1,43 @@
+package com.tylersuehr.esr;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BitmapCache}.
+ */
+public class BitmapCacheTest {
+    @Test
+    public void key_equalsForSameImage() throws Exception {
+        BitmapCache.Key key = key(ImageStateDisplay.class, "res/drawable-xhdpi/empty.png@320");
+        BitmapCache.Key other = key(ImageStateDisplay.class, "res/drawable-xhdpi/empty.png@320");
+        assertEquals(key, other);
+        assertEquals(key.hashCode(), other.hashCode());
+    }
+
+    @Test
+    public void key_differsForResolvedVariants() throws Exception {
+        assertNotEquals(key(ImageStateDisplay.class, "res/drawable-xhdpi/empty.png@320"),
+                key(ImageStateDisplay.class, "res/drawable-night-xhdpi/empty.png@320"));
+        assertNotEquals(key(ImageStateDisplay.class, "res/drawable-xhdpi/empty.png@320"),
+                key(ImageStateDisplay.class, "res/drawable-xhdpi/empty.png@480"));
+    }
+
+    @Test
+    public void key_differsForProducers() throws Exception {
+        assertNotEquals(key(ImageStateDisplay.class, "res/drawable-xhdpi/empty.png@320"),
+                key(ImageTextStateDisplay.class, "res/drawable-xhdpi/empty.png@320"));
+        assertNotEquals(key(ImageStateDisplay.class, "res/drawable-xhdpi/empty.png@320"),
+                key(CroppingDisplay.class, "res/drawable-xhdpi/empty.png@320"));
+    }
+
+    private static BitmapCache.Key key(Class<?> producer, String source) {
+        return new BitmapCache.Key(producer, source, 96, 96, ImageStateDisplay.FIT_XY, Bitmap.Config.ARGB_8888);
+    }
+
+
+    private static final class CroppingDisplay extends ImageStateDisplay {}
+}
@@ -0,0 +1,34 @@
+package com.tylersuehr.esr;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BitmapPool}.
+ */
+public class BitmapPoolTest {
+    @Test
+    public void fits_reusesBigEnoughAllocations() throws Exception {
+        assertTrue(BitmapPool.fits(1000, 1000));
+        assertTrue(BitmapPool.fits(1500, 1000));
+        assertFalse(BitmapPool.fits(999, 1000));
+    }
+
+    @Test
+    public void fits_rejectsMuchBiggerAllocations() throws Exception {
+        // Like a small icon asking for a screen-sized buffer
+        final int icon = 144 * 144 * 4;
+        final int screen = 1080 * 1920 * 4;
+        assertFalse(BitmapPool.fits(screen, icon));
+        assertTrue(BitmapPool.fits(BitmapPool.MAX_SIZE_MULTIPLE * icon, icon));
+    }
+
+    @Test
+    public void getBytesPerPixel_sizesProducedConfigs() throws Exception {
+        assertEquals(2, BitmapPool.getBytesPerPixel(Bitmap.Config.RGB_565));
+        assertEquals(4, BitmapPool.getBytesPerPixel(Bitmap.Config.ARGB_8888));
+    }
+}
@@ -0,0 +1,95 @@
+package com.tylersuehr.esr;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CachedStateDisplay}.
+ */
+public class CachedStateDisplayTest {
+    @Test
+    public void getVersion_changesWithDisplayConfig() throws Exception {
+        TestDisplay display = new TestDisplay();
+        CachedStateDisplay cached = new CachedStateDisplay(display);
+        final int version = cached.getVersion();
+        assertEquals(version, cached.getVersion());
+
+        display.setPadding(1, 2, 3, 4);
+        assertNotEquals(version, cached.getVersion());
+    }
+
+    @Test
+    public void getVersion_changesWhenInvalidated() throws Exception {
+        CachedStateDisplay cached = new CachedStateDisplay(new TestDisplay());
+        final int version = cached.getVersion();
+        cached.invalidate();
+        assertNotEquals(version, cached.getVersion());
+    }
+
+    @Test
+    public void getVersion_neverRepeatsAfterChanges() throws Exception {
+        TestDisplay display = new TestDisplay();
+        CachedStateDisplay cached = new CachedStateDisplay(display);
+        final int version = cached.getVersion();
+        display.setPadding(1, 1, 1, 1);
+        cached.invalidate();
+        display.setPadding(2, 2, 2, 2);
+        assertTrue(cached.getVersion() > version);
+    }
+
+    @Test
+    public void onReleaseState_releasesDisplay() throws Exception {
+        TestDisplay display = new TestDisplay();
+        CachedStateDisplay cached = new CachedStateDisplay(display);
+        cached.onReleaseState(null);
+        assertEquals(1, display.releases);
+    }
+
+    @Test
+    public void onReleaseState_ignoresNonReleasableDisplay() throws Exception {
+        CachedStateDisplay cached = new CachedStateDisplay(new EmptyStateRecyclerView.StateDisplay() {
+            @Override
+            public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {}
+        });
+        cached.onReleaseState(null); // Nothing to forward the release to
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructor_rejectsNullDisplay() throws Exception {
+        new CachedStateDisplay(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsAnimatedDisplay() throws Exception {
+        new CachedStateDisplay(new EmptyStateRecyclerView.AnimatedStateDisplay() {
+            @Override
+            public boolean isAnimating() {
+                return true;
+            }
+
+            @Override
+            public void getAnimatedBounds(EmptyStateRecyclerView rv, Rect outBounds) {}
+
+            @Override
+            public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {}
+        });
+    }
+
+
+    private static final class TestDisplay extends AbstractStateDisplay
+            implements EmptyStateRecyclerView.ReleasableStateDisplay {
+        int releases;
+
+        @Override
+        public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {}
+
+        @Override
+        public void onReleaseState(EmptyStateRecyclerView rv) {
+            this.releases++;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.tylersuehr.esr;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link DrawingCache}.
+ */
+public class DrawingCacheTest {
+    private final List<Object> recycled = new ArrayList<>();
+    private final DrawingCache<Object> cache = new DrawingCache<>(new DrawingCache.Recycler<Object>() {
+        @Override
+        public void recycle(Object drawing) {
+            recycled.add(drawing);
+        }
+    });
+
+    @Test
+    public void get_reusesDrawingForSameSizeAndVersion() throws Exception {
+        final Object drawing = new Object();
+        cache.put(drawing, 100, 200, 1);
+        assertSame(drawing, cache.get(100, 200, 1));
+        assertSame(drawing, cache.get(100, 200, 1));
+        assertTrue(recycled.isEmpty());
+    }
+
+    @Test
+    public void get_missesForNewVersion() throws Exception {
+        final Object drawing = new Object();
+        cache.put(drawing, 100, 200, 1);
+        assertNull(cache.get(100, 200, 2));
+        // The stale drawing can still be drawn until a new one is ready
+        assertSame(drawing, cache.getForSize(100, 200));
+    }
+
+    @Test
+    public void get_missesForNewSize() throws Exception {
+        cache.put(new Object(), 100, 200, 1);
+        assertNull(cache.get(200, 100, 1));
+        assertNull(cache.getForSize(200, 100));
+    }
+
+    @Test
+    public void put_recyclesReplacedDrawing() throws Exception {
+        final Object first = new Object();
+        final Object second = new Object();
+        cache.put(first, 100, 200, 1);
+        cache.put(first, 100, 200, 2);
+        assertTrue(recycled.isEmpty());
+
+        cache.put(second, 100, 200, 3);
+        assertEquals(1, recycled.size());
+        assertSame(first, recycled.get(0));
+        assertSame(second, cache.get(100, 200, 3));
+    }
+
+    @Test
+    public void clear_recyclesDrawing() throws Exception {
+        final Object drawing = new Object();
+        cache.put(drawing, 100, 200, 1);
+        cache.clear();
+        assertEquals(1, recycled.size());
+        assertSame(drawing, recycled.get(0));
+        assertNull(cache.getForSize(100, 200));
+
+        cache.clear();
+        assertEquals(1, recycled.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.tylersuehr.esr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link DynamicText}.
+ */
+public class DynamicTextTest {
+    @Test
+    public void formatNumber_groupsDigits() throws Exception {
+        assertEquals("0", format(0, ','));
+        assertEquals("999", format(999, ','));
+        assertEquals("1,204", format(1204, ','));
+        assertEquals("1,000,000", format(1000000, ','));
+        assertEquals("1204", format(1204, (char)0));
+    }
+
+    @Test
+    public void formatNumber_handlesNegativeValues() throws Exception {
+        assertEquals("-5", format(-5, ','));
+        assertEquals("-1,204", format(-1204, ','));
+        assertEquals("-9,223,372,036,854,775,808", format(Long.MIN_VALUE, ','));
+        assertEquals(DynamicText.MAX_NUMBER_LENGTH, format(Long.MIN_VALUE, ',').length());
+    }
+
+    @Test
+    public void getChars_formatsValuesIntoFormat() throws Exception {
+        DynamicText text = new DynamicText("Loaded %d of %d (100%%)", ',');
+        assertEquals(2, text.getValueCount());
+        assertTrue(text.setValue(0, 1204));
+        assertTrue(text.setValue(1, 9000));
+        assertEquals("Loaded 1,204 of 9,000 (100%)", toString(text));
+
+        assertTrue(text.setValue(0, 5));
+        assertEquals("Loaded 5 of 9,000 (100%)", toString(text));
+    }
+
+    @Test
+    public void getChars_reusesCharArray() throws Exception {
+        DynamicText text = new DynamicText("Retrying in %ds", ',');
+        final char[] chars = text.getChars();
+        text.setValue(0, Long.MAX_VALUE);
+        assertSame(chars, text.getChars());
+        text.setValue(0, Long.MIN_VALUE);
+        assertSame(chars, text.getChars());
+    }
+
+    @Test
+    public void setValue_reportsChanges() throws Exception {
+        DynamicText text = new DynamicText("Retrying in %ds", ',');
+        assertTrue(text.setValue(0, 5));
+        assertFalse(text.setValue(0, 5));
+        assertFalse(text.setGroupingSeparator(','));
+        assertTrue(text.setGroupingSeparator((char)0));
+    }
+
+    @Test
+    public void getLayoutVersion_onlyChangesWhenCharsMove() throws Exception {
+        DynamicText text = new DynamicText("Loaded %d of %d", ',');
+        text.setValue(1, 100);
+        final int version = text.getLayoutVersion();
+        text.setValue(1, 999);
+        text.setValue(1, -10);
+        assertEquals(version, text.getLayoutVersion());
+
+        text.setValue(1, 1000);
+        assertNotEquals(version, text.getLayoutVersion());
+    }
+
+    @Test
+    public void getNumberLength_matchesFormattedLength() throws Exception {
+        final long[] values = { 0, 7, -7, 999, 1000, -1204, 1000000, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (long value : values) {
+            assertEquals(format(value, ',').length(), DynamicText.getNumberLength(value, ','));
+            assertEquals(format(value, (char)0).length(), DynamicText.getNumberLength(value, (char)0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setValue_rejectsMissingValue() throws Exception {
+        new DynamicText("Retrying in %ds", ',').setValue(1, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsUnsupportedFormat() throws Exception {
+        new DynamicText("Loaded %s", ',');
+    }
+
+    private static String format(long value, char groupingSeparator) {
+        final char[] chars = new char[DynamicText.MAX_NUMBER_LENGTH];
+        return new String(chars, 0, DynamicText.formatNumber(value, groupingSeparator, chars, 0));
+    }
+
+    private static String toString(DynamicText text) {
+        return new String(text.getChars(), 0, text.length());
+    }
+}
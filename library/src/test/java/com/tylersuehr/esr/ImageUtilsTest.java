@@ -0,0 +1,30 @@
+package com.tylersuehr.esr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ImageUtils}.
+ */
+public class ImageUtilsTest {
+    @Test
+    public void calculateInSampleSize_keepsImageAtLeastRequestedSize() throws Exception {
+        assertEquals(4, ImageUtils.calculateInSampleSize(2000, 1000, 400, 200));
+        assertEquals(2, ImageUtils.calculateInSampleSize(2000, 1000, 600, 200));
+        assertEquals(1, ImageUtils.calculateInSampleSize(2000, 1000, 1500, 200));
+    }
+
+    @Test
+    public void calculateInSampleSize_honorsBothDimensions() throws Exception {
+        assertEquals(2, ImageUtils.calculateInSampleSize(2000, 1000, 100, 400));
+        assertEquals(8, ImageUtils.calculateInSampleSize(2000, 1000, 0, 100));
+        assertEquals(16, ImageUtils.calculateInSampleSize(2000, 1000, 100, 0));
+    }
+
+    @Test
+    public void calculateInSampleSize_doesNotSampleWithoutRequestedSize() throws Exception {
+        assertEquals(1, ImageUtils.calculateInSampleSize(2000, 1000, 0, 0));
+        assertEquals(1, ImageUtils.calculateInSampleSize(100, 100, 400, 400));
+    }
+}
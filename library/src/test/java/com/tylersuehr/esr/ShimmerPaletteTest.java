@@ -0,0 +1,118 @@
+package com.tylersuehr.esr;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Local unit tests for {@link ShimmerPalette}.
+ */
+public class ShimmerPaletteTest {
+    @Test
+    public void colorAt_returnsKeyColorsAtEnds() throws Exception {
+        ShimmerPalette palette = new ShimmerPalette(0xFFE0E0E0, 0xFFBDBDBD, 0xFF9E9E9E);
+        assertEquals(0xFFE0E0E0, palette.colorAt(0f));
+        assertEquals(0xFF9E9E9E, palette.colorAt(1f));
+    }
+
+    @Test
+    public void colorAt_clampsOutOfRangeFractions() throws Exception {
+        ShimmerPalette palette = new ShimmerPalette(0xFF000000, 0xFFFFFFFF);
+        assertEquals(0xFF000000, palette.colorAt(-1f));
+        assertEquals(0xFFFFFFFF, palette.colorAt(2f));
+    }
+
+    @Test
+    public void colorAt_interpolatesBetweenKeyColors() throws Exception {
+        ShimmerPalette palette = new ShimmerPalette(0xFF000000, 0xFFFFFFFF);
+        final int mid = palette.colorAt(0.5f);
+        assertEquals(0xFF, mid >>> 24);
+        assertEquals(0x80, (mid >> 16) & 0xFF, 1);
+        assertEquals(0x80, (mid >> 8) & 0xFF, 1);
+        assertEquals(0x80, mid & 0xFF, 1);
+    }
+
+    @Test
+    public void interpolate_interpolatesEachChannel() throws Exception {
+        assertEquals(0x00000000, ShimmerPalette.interpolate(0x00000000, 0xFFFFFFFF, 0f));
+        assertEquals(0xFFFFFFFF, ShimmerPalette.interpolate(0x00000000, 0xFFFFFFFF, 1f));
+        assertEquals(0x7F402010, ShimmerPalette.interpolate(0x00000000, 0xFF804020, 0.5f));
+    }
+
+    @Test
+    public void colorAt_doesNotAllocate() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = getAllocationBean();
+
+        ShimmerPalette palette = ShimmerPalette.DEFAULT;
+        final long threadId = Thread.currentThread().getId();
+
+        // Warm up so that class loading and JIT don't count as allocations
+        int sink = 0;
+        for (int i = 0; i < 100000; i++) {
+            sink += palette.colorAt(i / 100000f);
+        }
+
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            sink += palette.colorAt(i / 100000f);
+        }
+        final long after = threadBean.getThreadAllocatedBytes(threadId);
+
+        assertTrue(sink != 0); // Keep the loops from being optimized away
+        assertEquals(0, after - before);
+    }
+
+    @Test
+    public void animationFrame_doesNotAllocate() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = getAllocationBean();
+
+        // Same work the animated displays do per frame: tick the clock, then look up
+        // the pulse color for the phase and the sweep progress
+        AnimationFrameClock clock = AnimationFrameClock.getInstance();
+        ShimmerPalette palette = ShimmerPalette.DEFAULT;
+        final long threadId = Thread.currentThread().getId();
+        final long frameNanos = 16666667L;
+
+        // Warm up so that class loading and JIT don't count as allocations
+        float sink = 0;
+        for (int i = 0; i < 100000; i++) {
+            clock.doFrame(i * frameNanos);
+            sink += palette.colorAt(clock.getPhase(1000)) + clock.getProgress(2000);
+        }
+
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            clock.doFrame(i * frameNanos);
+            sink += palette.colorAt(clock.getPhase(1000)) + clock.getProgress(2000);
+        }
+        final long after = threadBean.getThreadAllocatedBytes(threadId);
+
+        assertTrue(sink != 0); // Keep the loops from being optimized away
+        assertEquals(0, after - before);
+    }
+
+    @Test
+    public void getPhase_reversesEveryDuration() throws Exception {
+        AnimationFrameClock clock = AnimationFrameClock.getInstance();
+        clock.doFrame(0);
+        assertEquals(0f, clock.getPhase(1000), 0.001f);
+        clock.doFrame(500 * 1000000L);
+        assertEquals(0.5f, clock.getPhase(1000), 0.001f);
+        assertEquals(0.25f, clock.getProgress(2000), 0.001f);
+        clock.doFrame(1500 * 1000000L);
+        assertEquals(0.5f, clock.getPhase(1000), 0.001f);
+        assertEquals(0.75f, clock.getProgress(2000), 0.001f);
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        return threadBean;
+    }
+}
@@ -0,0 +1,39 @@
+package com.tylersuehr.esr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link StateRegistry}.
+ */
+public class StateRegistryTest {
+    @Test
+    public void stockStates_ownTheirIds() throws Exception {
+        assertEquals(EmptyStateRecyclerView.STATE_LOADING, StateRegistry.register("loading"));
+        assertEquals(EmptyStateRecyclerView.STATE_EMPTY, StateRegistry.register("empty"));
+        assertEquals(EmptyStateRecyclerView.STATE_ERROR, StateRegistry.register("error"));
+        assertEquals(EmptyStateRecyclerView.STATE_OK, StateRegistry.register("ok"));
+    }
+
+    @Test
+    public void register_returnsSameIdForSameName() throws Exception {
+        final byte offline = StateRegistry.register("test_offline");
+        assertEquals(offline, StateRegistry.register("test_offline"));
+        assertEquals("test_offline", StateRegistry.getName(offline));
+    }
+
+    @Test
+    public void register_returnsDenseDistinctIds() throws Exception {
+        final byte first = StateRegistry.register("test_permission_denied");
+        final byte second = StateRegistry.register("test_rate_limited");
+        assertTrue(first > EmptyStateRecyclerView.STATE_OK);
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    public void getName_returnsNullForUnknownStates() throws Exception {
+        assertNull(StateRegistry.getName((byte)-1));
+        assertNull(StateRegistry.getName(Byte.MAX_VALUE));
+    }
+}
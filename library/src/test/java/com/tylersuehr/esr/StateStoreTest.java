@@ -0,0 +1,178 @@
+package com.tylersuehr.esr;
+
+import android.graphics.Canvas;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link StateStore}.
+ */
+public class StateStoreTest {
+    private static final byte[] STATES = {
+            EmptyStateRecyclerView.STATE_LOADING,
+            EmptyStateRecyclerView.STATE_EMPTY,
+            EmptyStateRecyclerView.STATE_ERROR,
+            EmptyStateRecyclerView.STATE_OK
+    };
+
+    @Test
+    public void putDisplay_andRemoveDisplay() throws Exception {
+        StateStore store = new StateStore(EmptyStateRecyclerView.STATE_OK);
+        TestDisplay display = new TestDisplay(0, 0);
+
+        store.putDisplay(EmptyStateRecyclerView.STATE_EMPTY, display);
+        assertSame(display, store.get().getDisplay(EmptyStateRecyclerView.STATE_EMPTY));
+        assertNull(store.get().getCurrentDisplay());
+
+        assertTrue(store.removeDisplay(EmptyStateRecyclerView.STATE_EMPTY));
+        assertFalse(store.removeDisplay(EmptyStateRecyclerView.STATE_EMPTY));
+        assertNull(store.get().getDisplay(EmptyStateRecyclerView.STATE_EMPTY));
+    }
+
+    @Test
+    public void setState_onlyReportsChanges() throws Exception {
+        StateStore store = new StateStore(EmptyStateRecyclerView.STATE_OK);
+        assertFalse(store.setState(EmptyStateRecyclerView.STATE_OK));
+        assertTrue(store.setState(EmptyStateRecyclerView.STATE_LOADING));
+        assertEquals(EmptyStateRecyclerView.STATE_LOADING, store.get().state);
+    }
+
+    @Test
+    public void clearDisplays_removesAllDisplays() throws Exception {
+        StateStore store = new StateStore(EmptyStateRecyclerView.STATE_OK);
+        assertFalse(store.clearDisplays());
+
+        store.putDisplays(STATES, newDisplays(0));
+        assertTrue(store.clearDisplays());
+        assertTrue(store.get().isEmpty());
+    }
+
+    @Test
+    public void snapshotsAreUnaffectedByLaterChanges() throws Exception {
+        StateStore store = new StateStore(EmptyStateRecyclerView.STATE_OK);
+        store.putDisplays(STATES, newDisplays(0));
+
+        StateStore.Snapshot snapshot = store.get();
+        store.setState(EmptyStateRecyclerView.STATE_ERROR);
+        store.putDisplays(STATES, newDisplays(1));
+
+        assertEquals(EmptyStateRecyclerView.STATE_OK, snapshot.state);
+        assertEquals(0, ((TestDisplay)snapshot.getCurrentDisplay()).generation);
+    }
+
+    @Test
+    public void containsDisplay_findsDisplaysOfAnyState() throws Exception {
+        StateStore store = new StateStore(EmptyStateRecyclerView.STATE_OK);
+        TestDisplay display = new TestDisplay(0, 0);
+        store.putDisplay(EmptyStateRecyclerView.STATE_ERROR, display);
+
+        assertTrue(store.get().containsDisplay(display));
+        assertFalse(store.get().containsDisplay(new TestDisplay(0, 0)));
+        assertEquals(EmptyStateRecyclerView.STATE_ERROR + 1, store.get().getDisplayCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putDisplay_rejectsNegativeStates() throws Exception {
+        new StateStore(EmptyStateRecyclerView.STATE_OK).putDisplay((byte)-1, new TestDisplay(0, 0));
+    }
+
+    @Test
+    public void readersNeverSeeTornState() throws Exception {
+        final StateStore store = new StateStore(EmptyStateRecyclerView.STATE_OK);
+        store.putDisplays(STATES, newDisplays(0));
+
+        final int writers = 4;
+        final int readers = 4;
+        final int iterations = 20000;
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(writers);
+
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    for (int i = 0; i < iterations; i++) {
+                        store.putDisplays(STATES, newDisplays(writer * iterations + i));
+                        store.setState(STATES[i % STATES.length]);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        Thread[] readerThreads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            readerThreads[r] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    await(start);
+                    while (running.get()) {
+                        final StateStore.Snapshot snapshot = store.get();
+                        final TestDisplay current = (TestDisplay)snapshot.getCurrentDisplay();
+
+                        // The current display must belong to the snapshot's state...
+                        if (current == null || current.state != snapshot.state) {
+                            failure.compareAndSet(null, "Display doesn't match state " + snapshot.state);
+                        }
+
+                        // ...and all displays must come from the same batch change
+                        final int generation = ((TestDisplay)snapshot.getDisplay(0)).generation;
+                        for (byte state : STATES) {
+                            if (((TestDisplay)snapshot.getDisplay(state)).generation != generation) {
+                                failure.compareAndSet(null, "Saw displays from different changes");
+                            }
+                        }
+                    }
+                }
+            });
+            readerThreads[r].start();
+        }
+
+        start.countDown();
+        done.await();
+        running.set(false);
+        for (Thread reader : readerThreads) {
+            reader.join();
+        }
+        assertNull(failure.get(), failure.get());
+    }
+
+    private static EmptyStateRecyclerView.StateDisplay[] newDisplays(int generation) {
+        EmptyStateRecyclerView.StateDisplay[] displays = new EmptyStateRecyclerView.StateDisplay[STATES.length];
+        for (int i = 0; i < STATES.length; i++) {
+            displays[i] = new TestDisplay(STATES[i], generation);
+        }
+        return displays;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class TestDisplay implements EmptyStateRecyclerView.StateDisplay {
+        final int state;
+        final int generation;
+
+        TestDisplay(int state, int generation) {
+            this.state = state;
+            this.generation = generation;
+        }
+
+        @Override
+        public void onDrawState(EmptyStateRecyclerView rv, Canvas canvas) {}
+    }
+}